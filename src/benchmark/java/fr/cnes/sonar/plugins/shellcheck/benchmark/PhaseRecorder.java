@@ -0,0 +1,231 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the wall time, peak heap and allocated bytes of successive phases.
+ *
+ * Allocations are summed over all threads, including the workers started
+ * during a phase: a sampler reads their counters every few milliseconds, so
+ * the last allocations of a thread ending between two samples are missed.
+ * The peak heap is the sum of the peak usage of the heap memory pools.
+ *
+ * @author lequal
+ */
+public class PhaseRecorder {
+
+    /**
+     * Time between two samples of the allocation counters, in milliseconds.
+     */
+    private static final long SAMPLING_PERIOD = 5L;
+
+    /**
+     * Bean giving allocation counters of threads.
+     */
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Measured phases, in order.
+     */
+    private final List<Phase> phases = new ArrayList<>();
+
+    /**
+     * Task of a phase.
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Run the phase.
+         *
+         * @throws Exception If the phase fails.
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Run and measure a phase.
+     *
+     * @param name Name of the phase.
+     * @param task Work of the phase.
+     * @throws Exception If the phase fails.
+     */
+    public void measure(final String name, final Task task) throws Exception {
+        for(final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        final Sampler sampler = new Sampler();
+        final long start = System.nanoTime();
+        sampler.start();
+        try {
+            task.run();
+        } finally {
+            final long wall = System.nanoTime() - start;
+            sampler.finish();
+            long peak = 0;
+            for(final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if(pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            phases.add(new Phase(name, TimeUnit.NANOSECONDS.toMillis(wall), peak, sampler.allocated()));
+        }
+    }
+
+    /**
+     * Getter for the measured phases.
+     *
+     * @return Phases in order of execution.
+     */
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Measures of a phase.
+     */
+    public static class Phase {
+
+        /**
+         * Name of the phase.
+         */
+        public final String name;
+
+        /**
+         * Wall time, in milliseconds.
+         */
+        public final long wallMillis;
+
+        /**
+         * Peak heap usage, in bytes.
+         */
+        public final long peakHeapBytes;
+
+        /**
+         * Bytes allocated by all threads.
+         */
+        public final long allocatedBytes;
+
+        /**
+         * Create measures.
+         *
+         * @param name Name of the phase.
+         * @param wallMillis Wall time, in milliseconds.
+         * @param peakHeapBytes Peak heap usage, in bytes.
+         * @param allocatedBytes Bytes allocated by all threads.
+         */
+        Phase(final String name, final long wallMillis, final long peakHeapBytes, final long allocatedBytes) {
+            this.name = name;
+            this.wallMillis = wallMillis;
+            this.peakHeapBytes = peakHeapBytes;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Thread reading the allocation counters of all threads.
+     */
+    private final class Sampler extends Thread {
+
+        /**
+         * Counters of the threads when first seen, threads started during the phase begin at 0.
+         */
+        private final Map<Long, Long> first = new HashMap<>();
+
+        /**
+         * Last read counters of the threads.
+         */
+        private final Map<Long, Long> last = new HashMap<>();
+
+        /**
+         * True while the phase runs.
+         */
+        private volatile boolean running = true;
+
+        /**
+         * Create a sampler, reading the counters of the threads alive before the phase.
+         */
+        Sampler() {
+            super("allocation-sampler");
+            setDaemon(true);
+            sample(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample(false);
+                try {
+                    Thread.sleep(SAMPLING_PERIOD);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Stop sampling and read the counters a last time.
+         *
+         * @throws InterruptedException If interrupted while waiting the sampler.
+         */
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+            sample(false);
+        }
+
+        /**
+         * Read the counters of all alive threads.
+         *
+         * @param initial True for the threads existing before the phase.
+         */
+        private synchronized void sample(final boolean initial) {
+            final long[] ids = threads.getAllThreadIds();
+            final long[] allocated = threads.getThreadAllocatedBytes(ids);
+            for(int i = 0; i < ids.length; i++) {
+                if(allocated[i] >= 0 && ids[i] != getId()) {
+                    first.putIfAbsent(ids[i], initial ? allocated[i] : 0L);
+                    last.put(ids[i], allocated[i]);
+                }
+            }
+        }
+
+        /**
+         * Sum the allocations of the phase.
+         *
+         * @return A number of bytes.
+         */
+        synchronized long allocated() {
+            long result = 0;
+            for(final Map.Entry<Long, Long> counter : last.entrySet()) {
+                result += counter.getValue() - first.get(counter.getKey());
+            }
+            return result;
+        }
+    }
+
+}
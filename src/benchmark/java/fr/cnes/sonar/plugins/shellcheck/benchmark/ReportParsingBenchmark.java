@@ -0,0 +1,109 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.benchmark;
+
+import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleReader;
+import fr.cnes.sonar.plugins.shellcheck.model.IssueBatch;
+import fr.cnes.sonar.plugins.shellcheck.model.Json1Reader;
+import fr.cnes.sonar.plugins.shellcheck.model.StringPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the parsers of shellcheck reports.
+ *
+ * Run with the GC profiler (the default jmh.args of the benchmarks profile)
+ * to get the allocation rate of each parser.
+ *
+ * @author lequal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportParsingBenchmark {
+
+    /**
+     * Number of files in the report.
+     */
+    @Param({"100", "1000"})
+    public int files;
+
+    /**
+     * Number of issues of each file.
+     */
+    @Param({"10"})
+    public int issuesPerFile;
+
+    /**
+     * Rule mix of the report, see {@link SyntheticReport}.
+     */
+    @Param({"2086:6,2034:2,2006:1,1091:1"})
+    public String rules;
+
+    /**
+     * Report in checkstyle format.
+     */
+    private byte[] checkstyle;
+
+    /**
+     * Report in json1 format.
+     */
+    private byte[] json1;
+
+    /**
+     * Generate the reports.
+     */
+    @Setup
+    public void generate() {
+        final SyntheticReport report = new SyntheticReport(files, issuesPerFile, rules);
+        checkstyle = report.checkstyle("/project/");
+        json1 = report.json1("/project/");
+    }
+
+    /**
+     * Stream a checkstyle report into a batch.
+     *
+     * @return The parsed report.
+     * @throws IOException If the report is malformed.
+     */
+    @Benchmark
+    public IssueBatch readCheckstyle() throws IOException {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        CheckstyleReader.read(new ByteArrayInputStream(checkstyle), batch);
+        return batch;
+    }
+
+    /**
+     * Stream a json1 report into a batch.
+     *
+     * @return The parsed report.
+     * @throws IOException If the report is malformed.
+     */
+    @Benchmark
+    public IssueBatch readJson1() throws IOException {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        Json1Reader.read(new ByteArrayInputStream(json1), batch);
+        return batch;
+    }
+
+}
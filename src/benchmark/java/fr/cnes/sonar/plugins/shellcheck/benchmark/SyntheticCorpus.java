@@ -0,0 +1,127 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.benchmark;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generator of a repository of shell scripts on disk.
+ *
+ * Scripts are spread in nested directories and use the interpreters known by
+ * the plugin in turn. Their issues are the ones of a {@link SyntheticReport}.
+ *
+ * @author lequal
+ */
+public class SyntheticCorpus {
+
+    /**
+     * Shebangs of the scripts, used in turn.
+     */
+    private static final String[] SHEBANGS = {"#!/bin/sh", "#!/bin/bash", "#!/bin/ksh", "#!/bin/dash"};
+
+    /**
+     * Report describing the scripts.
+     */
+    private final SyntheticReport report;
+
+    /**
+     * Content of the scripts, by shebang.
+     */
+    private final byte[][] contents = new byte[SHEBANGS.length][];
+
+    /**
+     * Offsets of the lines of the scripts, by shebang.
+     */
+    private final int[][] offsets = new int[SHEBANGS.length][];
+
+    /**
+     * Create a corpus.
+     *
+     * @param report Report describing the scripts.
+     */
+    public SyntheticCorpus(final SyntheticReport report) {
+        this.report = report;
+        for(int i = 0; i < SHEBANGS.length; i++) {
+            final String content = report.script(SHEBANGS[i]);
+            contents[i] = content.getBytes(StandardCharsets.UTF_8);
+            final List<Integer> lines = new ArrayList<>();
+            lines.add(0);
+            for(int offset = 0; offset < content.length() - 1; offset++) {
+                if(content.charAt(offset) == '\n') {
+                    lines.add(offset + 1);
+                }
+            }
+            offsets[i] = lines.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Getter for the report describing the scripts.
+     *
+     * @return The report.
+     */
+    public SyntheticReport getReport() {
+        return report;
+    }
+
+    /**
+     * Write all scripts.
+     *
+     * @param baseDir Root of the repository.
+     * @throws IOException If a script cannot be written.
+     */
+    public void write(final Path baseDir) throws IOException {
+        Path directory = null;
+        for(int file = 0; file < report.getFiles(); file++) {
+            final Path script = baseDir.resolve(report.path(file));
+            if(!script.getParent().equals(directory)) {
+                directory = script.getParent();
+                Files.createDirectories(directory);
+            }
+            Files.write(script, contents[file % SHEBANGS.length]);
+        }
+    }
+
+    /**
+     * Describe a script as the scanner does, without reading it.
+     *
+     * @param file Index of the script.
+     * @param baseDir Root of the repository.
+     * @return A main shell file.
+     */
+    public InputFile inputFile(final int file, final Path baseDir) {
+        final int shebang = file % SHEBANGS.length;
+        return TestInputFileBuilder.create("ProjectKey", report.path(file))
+                .setModuleBaseDir(baseDir)
+                .setLanguage("shell")
+                .setType(InputFile.Type.MAIN)
+                .setCharset(StandardCharsets.UTF_8)
+                .setLines(offsets[shebang].length)
+                .setOriginalLineOffsets(offsets[shebang])
+                .setLastValidOffset(contents[shebang].length)
+                .build();
+    }
+
+}
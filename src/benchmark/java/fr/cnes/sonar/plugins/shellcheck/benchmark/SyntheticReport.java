@@ -0,0 +1,237 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of shellcheck reports and of the scripts they describe.
+ *
+ * Reports are deterministic: the same parameters always give the same issues.
+ *
+ * @author lequal
+ */
+public class SyntheticReport {
+
+    /**
+     * Seed of the generator, fixed so that runs are comparable.
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * Number of entries in a directory of the generated tree.
+     */
+    private static final int DIRECTORY_SIZE = 100;
+
+    /**
+     * Number of files in the report.
+     */
+    private final int files;
+
+    /**
+     * Number of issues of each file.
+     */
+    private final int issuesPerFile;
+
+    /**
+     * Check code of each issue, file after file.
+     */
+    private final int[] codes;
+
+    /**
+     * Create a report.
+     *
+     * @param files Number of files in the report.
+     * @param issuesPerFile Number of issues of each file.
+     * @param rules Rule mix, like "2086:6,2034:2": check codes and their relative weights, 1 by default.
+     */
+    public SyntheticReport(final int files, final int issuesPerFile, final String rules) {
+        this.files = files;
+        this.issuesPerFile = issuesPerFile;
+        final List<Integer> pool = new ArrayList<>();
+        for(final String rule : rules.split(",")) {
+            final String[] parts = rule.trim().split(":");
+            final int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            for(int i = 0; i < weight; i++) {
+                pool.add(Integer.parseInt(parts[0]));
+            }
+        }
+        final Random random = new Random(SEED);
+        this.codes = new int[files * issuesPerFile];
+        for(int i = 0; i < codes.length; i++) {
+            codes[i] = pool.get(random.nextInt(pool.size()));
+        }
+    }
+
+    /**
+     * Getter for the number of files.
+     *
+     * @return Number of files in the report.
+     */
+    public int getFiles() {
+        return files;
+    }
+
+    /**
+     * Getter for the number of issues of a file.
+     *
+     * @return Number of issues of each file.
+     */
+    public int getIssuesPerFile() {
+        return issuesPerFile;
+    }
+
+    /**
+     * Name of a file, relative to the root of the generated tree.
+     *
+     * @param file Index of the file.
+     * @return A path like dir1/dir23/script12345.sh, the tree being two directories deep.
+     */
+    public String path(final int file) {
+        return String.format("dir%d/dir%d/script%d.sh",
+                file / (DIRECTORY_SIZE * DIRECTORY_SIZE), file / DIRECTORY_SIZE % DIRECTORY_SIZE, file);
+    }
+
+    /**
+     * Check code of an issue.
+     *
+     * @param file Index of the file.
+     * @param issue Index of the issue in the file.
+     * @return A shellcheck code like 2086.
+     */
+    public int code(final int file, final int issue) {
+        return codes[file * issuesPerFile + issue];
+    }
+
+    /**
+     * Line of an issue, each issue of a file being on its own line.
+     *
+     * @param issue Index of the issue in the file.
+     * @return A 1-based line, below the shebang.
+     */
+    public int line(final int issue) {
+        return issue + 2;
+    }
+
+    /**
+     * Column of an issue.
+     *
+     * @param issue Index of the issue in the file.
+     * @return A 1-based column.
+     */
+    public int column(final int issue) {
+        return 1 + issue % 5;
+    }
+
+    /**
+     * Message of an issue, embedding a variable name like shellcheck does.
+     *
+     * @param file Index of the file.
+     * @param issue Index of the issue in the file.
+     * @return A message.
+     */
+    public String message(final int file, final int issue) {
+        switch (code(file, issue)) {
+            case 2034:
+                return String.format("var%d appears unused. Verify use (or export if used externally).", issue % 10);
+            case 2086:
+                return "Double quote to prevent globbing and word splitting.";
+            default:
+                return String.format("Synthetic issue %d.", code(file, issue));
+        }
+    }
+
+    /**
+     * Severity of an issue.
+     *
+     * @param file Index of the file.
+     * @param issue Index of the issue in the file.
+     * @return A shellcheck level.
+     */
+    public String level(final int file, final int issue) {
+        return code(file, issue) < 2000 ? "error" : (code(file, issue) == 2034 ? "warning" : "info");
+    }
+
+    /**
+     * Content of a script, long enough for all its issues.
+     *
+     * @param shebang First line of the script, like #!/bin/bash.
+     * @return One line per issue after the shebang.
+     */
+    public String script(final String shebang) {
+        final StringBuilder content = new StringBuilder(shebang).append('\n');
+        for(int i = 0; i < issuesPerFile; i++) {
+            content.append("echo $var").append(i % 10).append(" $HOME\n");
+        }
+        return content.toString();
+    }
+
+    /**
+     * Produce the report in checkstyle format.
+     *
+     * @param root Prefix of the file names, like /project/.
+     * @return The report encoded in UTF-8.
+     */
+    public byte[] checkstyle(final String root) {
+        final StringBuilder report = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<checkstyle version='4.3'>\n");
+        for(int file = 0; file < files; file++) {
+            report.append("<file name='").append(root).append(path(file)).append("' >\n");
+            for(int issue = 0; issue < issuesPerFile; issue++) {
+                report.append("<error line='").append(line(issue))
+                        .append("' column='").append(column(issue))
+                        .append("' severity='").append(level(file, issue))
+                        .append("' message='").append(message(file, issue))
+                        .append("' source='ShellCheck.SC").append(code(file, issue)).append("' />\n");
+            }
+            report.append("</file>\n");
+        }
+        return report.append("</checkstyle>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Produce the report in json1 format.
+     *
+     * @param root Prefix of the file names, like /project/.
+     * @return The report encoded in UTF-8.
+     */
+    public byte[] json1(final String root) {
+        final StringBuilder report = new StringBuilder("{\"comments\":[");
+        boolean first = true;
+        for(int file = 0; file < files; file++) {
+            for(int issue = 0; issue < issuesPerFile; issue++) {
+                if(!first) {
+                    report.append(',');
+                }
+                first = false;
+                report.append("{\"file\":\"").append(root).append(path(file))
+                        .append("\",\"line\":").append(line(issue))
+                        .append(",\"endLine\":").append(line(issue))
+                        .append(",\"column\":").append(column(issue))
+                        .append(",\"endColumn\":").append(column(issue) + 3)
+                        .append(",\"level\":\"").append(level(file, issue))
+                        .append("\",\"code\":").append(code(file, issue))
+                        .append(",\"message\":\"").append(message(file, issue))
+                        .append("\",\"fix\":null}");
+            }
+        }
+        return report.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
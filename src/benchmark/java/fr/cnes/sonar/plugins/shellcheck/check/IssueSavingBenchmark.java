@@ -0,0 +1,221 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.benchmark.SyntheticReport;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the steps saving the issues of a report: resolution of file
+ * names, lookup of active rules and creation of the issues.
+ *
+ * @author lequal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IssueSavingBenchmark {
+
+    /**
+     * Number of files in the report.
+     */
+    @Param({"100", "1000"})
+    public int files;
+
+    /**
+     * Number of issues of each file.
+     */
+    @Param({"10"})
+    public int issuesPerFile;
+
+    /**
+     * Rule mix of the report, see {@link SyntheticReport}.
+     */
+    @Param({"2086:6,2034:2,2006:1,1091:1"})
+    public String rules;
+
+    /**
+     * Generated report.
+     */
+    private SyntheticReport report;
+
+    /**
+     * File system of the project, its files are not written on disk.
+     */
+    private DefaultFileSystem fileSystem;
+
+    /**
+     * Files of the project, in the order of the report.
+     */
+    private InputFile[] inputFiles;
+
+    /**
+     * Names of the files in the report.
+     */
+    private String[] names;
+
+    /**
+     * Active rules, every other rule of the mix being inactive.
+     */
+    private ActiveRules activeRules;
+
+    /**
+     * Index of the active rules.
+     */
+    private ActiveRuleIndex ruleIndex;
+
+    /**
+     * Create the project and its report.
+     *
+     * @throws IOException If the base directory cannot be created.
+     */
+    @Setup
+    public void generate() throws IOException {
+        report = new SyntheticReport(files, issuesPerFile, rules);
+        final Path baseDir = Files.createTempDirectory("shellcheck-benchmark").toRealPath();
+        fileSystem = new DefaultFileSystem(baseDir);
+        inputFiles = new InputFile[files];
+        names = new String[files];
+        final String content = report.script("#!/bin/bash");
+        for(int i = 0; i < files; i++) {
+            inputFiles[i] = TestInputFileBuilder.create("ProjectKey", report.path(i))
+                    .setModuleBaseDir(baseDir)
+                    .setLanguage("shell")
+                    .setType(InputFile.Type.MAIN)
+                    .setCharset(StandardCharsets.UTF_8)
+                    .setContents(content)
+                    .build();
+            fileSystem.add(inputFiles[i]);
+            names[i] = baseDir.resolve(report.path(i)).toString();
+        }
+        final TreeSet<Integer> codes = new TreeSet<>();
+        for(int i = 0; i < files * issuesPerFile; i++) {
+            codes.add(report.code(i / issuesPerFile, i % issuesPerFile));
+        }
+        final ActiveRulesBuilder builder = new ActiveRulesBuilder();
+        boolean active = true;
+        for(final int code : codes) {
+            if(active) {
+                builder.create(RuleKey.of("shell-rules", "ShellCheck.SC" + code)).activate();
+            }
+            active = !active;
+        }
+        activeRules = builder.build();
+        ruleIndex = new ActiveRuleIndex(activeRules);
+    }
+
+    /**
+     * Resolve the file of each issue, the resolver being new as in an analysis.
+     *
+     * @param blackhole Consumer of the results.
+     */
+    @Benchmark
+    public void resolvePaths(final Blackhole blackhole) {
+        final PathResolver resolver = new PathResolver(fileSystem);
+        for(final String name : names) {
+            for(int issue = 0; issue < issuesPerFile; issue++) {
+                blackhole.consume(resolver.resolve(name));
+            }
+        }
+    }
+
+    /**
+     * Index the active rules.
+     *
+     * @return The index.
+     */
+    @Benchmark
+    public ActiveRuleIndex indexRules() {
+        return new ActiveRuleIndex(activeRules);
+    }
+
+    /**
+     * Find the active rule of each issue.
+     *
+     * @param blackhole Consumer of the results.
+     */
+    @Benchmark
+    public void lookupRules(final Blackhole blackhole) {
+        for(int file = 0; file < files; file++) {
+            for(int issue = 0; issue < issuesPerFile; issue++) {
+                blackhole.consume(ruleIndex.get(report.code(file, issue)));
+            }
+        }
+    }
+
+    /**
+     * Save all issues into a new context, each file being indexed once.
+     *
+     * @param context Context receiving the issues.
+     * @throws IOException If a file cannot be read.
+     */
+    @Benchmark
+    public void saveIssues(final Context context) throws IOException {
+        for(int file = 0; file < files; file++) {
+            final LineIndex lines = LineIndex.of(inputFiles[file]);
+            for(int issue = 0; issue < issuesPerFile; issue++) {
+                final int column = report.column(issue);
+                ShellcheckSensor.saveIssue(context.sensorContext, inputFiles[file], lines,
+                        RuleKey.of("shell-rules", "ShellCheck.SC" + report.code(file, issue)),
+                        report.message(file, issue), report.line(issue), column, report.line(issue), column + 3);
+            }
+        }
+    }
+
+    /**
+     * Context of the analysis, renewed for each invocation so that saved issues do not accumulate.
+     */
+    @State(Scope.Thread)
+    public static class Context {
+
+        /**
+         * Context receiving the issues.
+         */
+        SensorContextTester sensorContext;
+
+        /**
+         * Create a new context.
+         *
+         * @param benchmark Benchmark providing the file system.
+         */
+        @Setup(Level.Invocation)
+        public void create(final IssueSavingBenchmark benchmark) {
+            sensorContext = SensorContextTester.create(benchmark.fileSystem.baseDir());
+            sensorContext.setFileSystem(benchmark.fileSystem);
+        }
+
+    }
+
+}
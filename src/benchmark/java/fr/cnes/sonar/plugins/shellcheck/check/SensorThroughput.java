@@ -0,0 +1,268 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.benchmark.PhaseRecorder;
+import fr.cnes.sonar.plugins.shellcheck.benchmark.SyntheticCorpus;
+import fr.cnes.sonar.plugins.shellcheck.benchmark.SyntheticReport;
+import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * End-to-end throughput of {@link ShellcheckSensor#execute} on generated repositories.
+ *
+ * For each repository size, a corpus of scripts is written on disk, then the
+ * sensor is run in auto-launch mode against {@link FakeShellcheckRunner} and in
+ * report import mode against a generated report. Wall time, peak heap and
+ * allocated bytes of each phase are written as JSON so that runs of different
+ * plugin versions can be compared.
+ *
+ * Options, all optional: --files 1000,10000 --issues 5 --rules 2086:6,2034:2
+ * --modes auto,report --format checkstyle --threads 4 --latency 0
+ * --dir (temporary directory) --label dev --output target/sensor-throughput.json
+ *
+ * @author lequal
+ */
+public final class SensorThroughput {
+
+    /**
+     * Name of the generated report, matching the default report pattern.
+     */
+    private static final String REPORT_NAME = "synthetic-shellcheck.res";
+
+    /**
+     * Options of the harness, with their default values.
+     */
+    private final Map<String, String> options = new HashMap<>();
+
+    /**
+     * Create a harness.
+     *
+     * @param args Command line options, as --name value pairs.
+     */
+    private SensorThroughput(final String[] args) {
+        options.put("files", "1000,10000");
+        options.put("issues", "5");
+        options.put("rules", "2086:6,2034:2,2006:1,1091:1");
+        options.put("modes", "auto,report");
+        options.put("format", ShellcheckPluginProperties.FORMAT_CHECKSTYLE);
+        options.put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        options.put("latency", "0");
+        options.put("dir", "");
+        options.put("label", "dev");
+        options.put("output", "target/sensor-throughput.json");
+        for(int i = 0; i + 1 < args.length; i += 2) {
+            if(!args[i].startsWith("--") || !options.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+    }
+
+    /**
+     * Run the harness.
+     *
+     * @param args Command line options, as --name value pairs.
+     * @throws Exception If a run fails.
+     */
+    public static void main(final String[] args) throws Exception {
+        new SensorThroughput(args).run();
+    }
+
+    /**
+     * Run every mode on every repository size and write the results.
+     *
+     * @throws Exception If a run fails.
+     */
+    private void run() throws Exception {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n  \"label\": ").append(quote(options.get("label")))
+                .append(",\n  \"java\": ").append(quote(System.getProperty("java.version")))
+                .append(",\n  \"processors\": ").append(Runtime.getRuntime().availableProcessors())
+                .append(",\n  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory())
+                .append(",\n  \"issuesPerFile\": ").append(Integer.parseInt(options.get("issues")))
+                .append(",\n  \"rules\": ").append(quote(options.get("rules")))
+                .append(",\n  \"format\": ").append(quote(options.get("format")))
+                .append(",\n  \"threads\": ").append(Integer.parseInt(options.get("threads")))
+                .append(",\n  \"runs\": [");
+        String separator = "\n";
+        for(final String files : options.get("files").split(",")) {
+            final SyntheticCorpus corpus = new SyntheticCorpus(new SyntheticReport(Integer.parseInt(files.trim()),
+                    Integer.parseInt(options.get("issues")), options.get("rules")));
+            final Path baseDir = options.get("dir").isEmpty() ? Files.createTempDirectory("shellcheck-corpus")
+                    : Files.createDirectories(Paths.get(options.get("dir"), "corpus-" + files.trim()));
+            try {
+                final PhaseRecorder generation = new PhaseRecorder();
+                generation.measure("generate", () -> corpus.write(baseDir.toRealPath()));
+                for(final String mode : options.get("modes").split(",")) {
+                    final PhaseRecorder recorder = new PhaseRecorder();
+                    final int issues = run(mode.trim(), corpus, baseDir.toRealPath(), recorder);
+                    System.out.println(String.format("%s files=%s issues=%d %s", mode.trim(), files.trim(), issues,
+                            describe(recorder)));
+                    json.append(separator).append("    {\"mode\": ").append(quote(mode.trim()))
+                            .append(", \"files\": ").append(corpus.getReport().getFiles())
+                            .append(", \"issues\": ").append(issues)
+                            .append(", \"phases\": [");
+                    final List<PhaseRecorder.Phase> phases = new ArrayList<>(generation.getPhases());
+                    phases.addAll(recorder.getPhases());
+                    for(int i = 0; i < phases.size(); i++) {
+                        final PhaseRecorder.Phase phase = phases.get(i);
+                        json.append(i == 0 ? "" : ", ").append("{\"name\": ").append(quote(phase.name))
+                                .append(", \"wallMillis\": ").append(phase.wallMillis)
+                                .append(", \"peakHeapBytes\": ").append(phase.peakHeapBytes)
+                                .append(", \"allocatedBytes\": ").append(phase.allocatedBytes).append('}');
+                    }
+                    json.append("]}");
+                    separator = ",\n";
+                }
+            } finally {
+                delete(baseDir);
+            }
+        }
+        json.append("\n  ]\n}\n");
+        final Path output = Paths.get(options.get("output"));
+        if(output.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(output.toAbsolutePath().getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    /**
+     * Run the sensor once.
+     *
+     * @param mode Either auto, for the auto-launch, or report, for the import of a report.
+     * @param corpus Scripts of the repository, already written.
+     * @param baseDir Root of the repository.
+     * @param recorder Recorder of the phases.
+     * @return Number of saved issues.
+     * @throws Exception If the run fails.
+     */
+    private int run(final String mode, final SyntheticCorpus corpus, final Path baseDir,
+                    final PhaseRecorder recorder) throws Exception {
+        final boolean auto = "auto".equals(mode);
+        if(!auto && !"report".equals(mode)) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        final SyntheticReport report = corpus.getReport();
+        final Path workDir = Files.createTempDirectory("shellcheck-work");
+        final Path reportFile = baseDir.resolve(REPORT_NAME);
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+        try {
+            // Measures of a run do not include the garbage of the previous one.
+            System.gc();
+            if(!auto) {
+                recorder.measure("report", () -> Files.write(reportFile,
+                        ShellcheckPluginProperties.FORMAT_JSON1.equals(options.get("format"))
+                                ? report.json1(baseDir + "/") : report.checkstyle(baseDir + "/")));
+            }
+            recorder.measure("index", () -> {
+                final DefaultFileSystem fileSystem = new DefaultFileSystem(baseDir);
+                fileSystem.setWorkDir(workDir);
+                for(int file = 0; file < report.getFiles(); file++) {
+                    fileSystem.add(corpus.inputFile(file, baseDir));
+                }
+                context.setFileSystem(fileSystem);
+            });
+            final MapSettings settings = new MapSettings();
+            settings.setProperty(ShellcheckPluginProperties.AUTOLAUNCH_PROP_KEY, String.valueOf(auto));
+            settings.setProperty(ShellcheckPluginProperties.FORMAT_PROP_KEY, options.get("format"));
+            settings.setProperty(ShellcheckPluginProperties.THREADS_PROP_KEY, options.get("threads"));
+            context.setSettings(settings);
+            final ActiveRulesBuilder rules = new ActiveRulesBuilder();
+            final Set<Integer> codes = new TreeSet<>(Collections.singleton(2086));
+            for(final String rule : options.get("rules").split(",")) {
+                codes.add(Integer.parseInt(rule.trim().split(":")[0]));
+            }
+            for(final int code : codes) {
+                rules.create(RuleKey.of("shell-rules", "ShellCheck.SC" + code)).activate();
+            }
+            context.setActiveRules(rules.build());
+            final ShellcheckSensor sensor = new ShellcheckSensor(
+                    new FakeShellcheckRunner(report.getIssuesPerFile(), Long.parseLong(options.get("latency"))));
+            recorder.measure("execute", () -> sensor.execute(context));
+            return context.allIssues().size();
+        } finally {
+            Files.deleteIfExists(reportFile);
+            delete(workDir);
+        }
+    }
+
+    /**
+     * Describe measured phases on a single line.
+     *
+     * @param recorder Recorder of the phases.
+     * @return A text like index=12ms execute=345ms/67MB.
+     */
+    private static String describe(final PhaseRecorder recorder) {
+        final StringBuilder result = new StringBuilder();
+        for(final PhaseRecorder.Phase phase : recorder.getPhases()) {
+            result.append(String.format(" %s=%dms/%dMB allocated/%dMB peak", phase.name, phase.wallMillis,
+                    phase.allocatedBytes >> 20, phase.peakHeapBytes >> 20));
+        }
+        return result.toString().trim();
+    }
+
+    /**
+     * Quote a string for JSON.
+     *
+     * @param value String to quote.
+     * @return The quoted string.
+     */
+    private static String quote(final String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Delete a directory and its content.
+     *
+     * @param directory Directory to delete.
+     * @throws IOException If a file cannot be deleted.
+     */
+    private static void delete(final Path directory) throws IOException {
+        if(!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
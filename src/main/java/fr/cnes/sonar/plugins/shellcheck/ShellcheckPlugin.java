@@ -16,8 +16,11 @@
  */
 package fr.cnes.sonar.plugins.shellcheck;
 
+import fr.cnes.sonar.plugins.shellcheck.check.ProcessShellcheckRunner;
 import fr.cnes.sonar.plugins.shellcheck.check.ShellcheckSensor;
 import fr.cnes.sonar.plugins.shellcheck.languages.*;
+import fr.cnes.sonar.plugins.shellcheck.measures.ShellcheckMeasureComputer;
+import fr.cnes.sonar.plugins.shellcheck.measures.ShellcheckMetrics;
 import fr.cnes.sonar.plugins.shellcheck.rules.ShellcheckRulesDefinition;
 import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
 import org.sonar.api.Plugin;
@@ -43,8 +46,13 @@ public class ShellcheckPlugin implements Plugin {
 
 		// Rules definition
 		context.addExtension(ShellcheckRulesDefinition.class);
+
+		// Metrics of the analysis cost
+		context.addExtension(ShellcheckMetrics.class);
+		context.addExtension(ShellcheckMeasureComputer.class);
 		
 		// Sonar scanner extension
+		context.addExtension(ProcessShellcheckRunner.class);
 		context.addExtension(ShellcheckSensor.class);
 	}
 }
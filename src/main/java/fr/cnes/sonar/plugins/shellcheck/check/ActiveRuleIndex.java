@@ -0,0 +1,81 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.languages.ShellLanguage;
+import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleReader;
+import fr.cnes.sonar.plugins.shellcheck.rules.ShellcheckRulesDefinition;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Active shellcheck rules indexed by the number of their check.
+ *
+ * The index is built once per analysis so that finding the rule of an issue
+ * is an array access, without allocating a rule key.
+ *
+ * @author lequal
+ */
+public class ActiveRuleIndex {
+
+    /**
+     * Active rule keys by check number, null for an inactive check.
+     */
+    private final RuleKey[] rules;
+
+    /**
+     * Build the index of the active rules of the shell repository.
+     *
+     * @param activeRules Set of active rules during an analysis.
+     */
+    public ActiveRuleIndex(final ActiveRules activeRules) {
+        final String repository = ShellcheckRulesDefinition.getRepositoryKeyForLanguage(ShellLanguage.KEY);
+        int max = 0;
+        for(final ActiveRule activeRule : activeRules.findByRepository(repository)) {
+            max = Math.max(max, CheckstyleReader.toCode(activeRule.ruleKey().rule()));
+        }
+        rules = new RuleKey[max + 1];
+        for(final ActiveRule activeRule : activeRules.findByRepository(repository)) {
+            final int code = CheckstyleReader.toCode(activeRule.ruleKey().rule());
+            if(code > 0) {
+                rules[code] = activeRule.ruleKey();
+            }
+        }
+    }
+
+    /**
+     * Find the active rule of a check.
+     *
+     * @param code Number of the check, without the SC prefix.
+     * @return The key of the rule, or null if the rule is inactive or unknown.
+     */
+    public RuleKey get(final int code) {
+        return code > 0 && code < rules.length ? rules[code] : null;
+    }
+
+    /**
+     * Find the active rule of a checkstyle source.
+     *
+     * @param source Source of the issue, like ShellCheck.SC2086.
+     * @return The key of the rule, or null if the rule is inactive or unknown.
+     */
+    public RuleKey get(final String source) {
+        return get(CheckstyleReader.toCode(source));
+    }
+
+}
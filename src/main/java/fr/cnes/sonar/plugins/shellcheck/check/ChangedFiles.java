@@ -0,0 +1,206 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Restrict auto-launch to files changed since the reference analysis.
+ *
+ * Only pull request analyses are restricted: on other analyses, SonarQube
+ * would close the issues of the files which are not analysed.
+ *
+ * @author lequal
+ */
+public final class ChangedFiles {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(ChangedFiles.class);
+
+    /**
+     * Key of the analysed pull request, only set on pull request analyses.
+     */
+    static final String PULL_REQUEST_KEY = "sonar.pullrequest.key";
+
+    /**
+     * Matches a file given to the source command or to a shellcheck source directive.
+     */
+    private static final Pattern SOURCE = Pattern.compile(
+            "^\\s*(?:(?:source|\\.)\\s+|#\\s*shellcheck\\s+source=)(?:\"([^\"]+)\"|'([^']+)'|([^\\s;&|]+))");
+
+    /**
+     * Private constructor for this utility class.
+     */
+    private ChangedFiles() {}
+
+    /**
+     * Check if auto-launch is restricted to changed files.
+     *
+     * The incremental mode is ignored, with a warning, outside of pull request analyses.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @return True if the incremental mode is asked and a pull request is analysed.
+     */
+    public static boolean isEnabled(final Configuration config) {
+        boolean enabled = config.getBoolean(ShellcheckPluginProperties.CHANGED_ONLY_PROP_KEY)
+                .orElse(Boolean.parseBoolean(ShellcheckPluginProperties.CHANGED_ONLY_PROP_DEFAULT));
+        if(enabled && !config.hasKey(PULL_REQUEST_KEY)) {
+            LOGGER.warn("Shellcheck incremental mode ignored: it only applies to pull request analyses, "
+                    + "issues of unchanged files would be closed otherwise.");
+            enabled = false;
+        }
+        return enabled;
+    }
+
+    /**
+     * Keep added or changed files and, if asked, the files sourcing them.
+     *
+     * @param files Files for each interpreter.
+     * @param followSources True to keep files sourcing a changed file.
+     * @param baseDir Directory against which relative sourced paths are also resolved.
+     * @return Kept files for each interpreter, in the same order.
+     */
+    public static Map<String, List<InputFile>> filter(final Map<String, List<InputFile>> files,
+                                                      final boolean followSources, final Path baseDir) {
+        // Paths of the added or changed files.
+        final Set<Path> changed = new HashSet<>();
+        for(final List<InputFile> interpreterFiles : files.values()) {
+            for(final InputFile inputFile : interpreterFiles) {
+                if(isChanged(inputFile)) {
+                    changed.add(path(inputFile));
+                }
+            }
+        }
+        final Map<String, List<InputFile>> result = new LinkedHashMap<>();
+        int kept = 0;
+        for(final Map.Entry<String, List<InputFile>> interpreterFiles : files.entrySet()) {
+            final List<InputFile> bucket = new ArrayList<>();
+            for(final InputFile inputFile : interpreterFiles.getValue()) {
+                if(isChanged(inputFile) || (followSources && !changed.isEmpty() && sources(inputFile, changed, baseDir))) {
+                    bucket.add(inputFile);
+                }
+            }
+            kept += bucket.size();
+            result.put(interpreterFiles.getKey(), bucket);
+        }
+        LOGGER.info(String.format("%d changed file(s), %d file(s) to analyse.", changed.size(), kept));
+        return result;
+    }
+
+    /**
+     * Check if a file is new or modified.
+     *
+     * @param inputFile File to check.
+     * @return True if the file is added or changed.
+     */
+    private static boolean isChanged(final InputFile inputFile) {
+        return inputFile.status() != InputFile.Status.SAME;
+    }
+
+    /**
+     * Check if a file sources one of the given files.
+     *
+     * Only direct sourcing is followed, files sourcing the file indirectly are not.
+     *
+     * @param inputFile File to read.
+     * @param targets Normalized absolute paths of the searched files.
+     * @param baseDir Directory against which relative sourced paths are also resolved.
+     * @return True if one of the targets is sourced.
+     */
+    static boolean sources(final InputFile inputFile, final Set<Path> targets, final Path baseDir) {
+        final Path directory = path(inputFile).getParent();
+        boolean found = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputFile.inputStream(), inputFile.charset()))) {
+            String line;
+            while (!found && (line = reader.readLine()) != null) {
+                final Matcher matcher = SOURCE.matcher(line);
+                if(matcher.find()) {
+                    final String sourced = firstNonNull(matcher.group(1), matcher.group(2), matcher.group(3));
+                    // Paths built from variables cannot be resolved.
+                    if(!sourced.contains("$")) {
+                        found = isTarget(sourced, directory, targets, baseDir);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn(e.getMessage(), e);
+        }
+        return found;
+    }
+
+    /**
+     * Check if a sourced path designates one of the given files.
+     *
+     * @param sourced Path given to the source command.
+     * @param directory Directory of the sourcing file.
+     * @param targets Normalized absolute paths of the searched files.
+     * @param baseDir Directory against which relative sourced paths are also resolved.
+     * @return True if the path is one of the targets, false if it is not a valid path.
+     */
+    private static boolean isTarget(final String sourced, final Path directory, final Set<Path> targets,
+                                    final Path baseDir) {
+        try {
+            return targets.contains(directory.resolve(sourced).normalize())
+                    || targets.contains(baseDir.resolve(sourced).toAbsolutePath().normalize());
+        } catch (InvalidPathException e) {
+            // Globs or odd characters of a script line are not paths of this file system.
+            LOGGER.debug(String.format("Sourced path '%s' ignored: %s", sourced, e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Retrieve the normalized absolute path of a file.
+     *
+     * @param inputFile File to locate.
+     * @return An absolute path.
+     */
+    private static Path path(final InputFile inputFile) {
+        return Paths.get(inputFile.uri()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Return the first non null value.
+     *
+     * @param values Candidates values, at least one is not null.
+     * @return A non null value.
+     */
+    private static String firstNonNull(final String... values) {
+        String result = null;
+        for(int i = 0; result == null && i < values.length; i++) {
+            result = values[i];
+        }
+        return result;
+    }
+
+}
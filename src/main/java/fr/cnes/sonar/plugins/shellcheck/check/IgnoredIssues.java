@@ -0,0 +1,199 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.util.*;
+
+/**
+ * Count issues which are not saved, to log a summary instead of a line per issue.
+ *
+ * Each issue is only logged at trace level, and the first issue of each rule or
+ * file at debug level. An instance is used by the sensor thread only.
+ *
+ * @author lequal
+ */
+public class IgnoredIssues {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(IgnoredIssues.class);
+
+    /**
+     * Maximum number of rules or files detailed in a summary.
+     */
+    private static final int SUMMARY_SIZE = 10;
+
+    /**
+     * Ignored issues by check number of their deactivated rule, 0 for unknown rules.
+     */
+    private int[] inactiveRules = new int[4096];
+
+    /**
+     * Ignored issues by name of their missing file.
+     */
+    private final Map<String, int[]> missingFiles = new HashMap<>();
+
+    /**
+     * Number of issues already saved from another report.
+     */
+    private int duplicates = 0;
+
+    /**
+     * Count an issue of a deactivated rule.
+     *
+     * @param code Number of the shellcheck check, 0 if unknown.
+     */
+    public void inactiveRule(final int code) {
+        final int index = Math.max(0, code);
+        if(index >= inactiveRules.length) {
+            inactiveRules = Arrays.copyOf(inactiveRules, Math.max(index + 1, inactiveRules.length * 2));
+        }
+        if(inactiveRules[index]++ == 0) {
+            LOGGER.debug(String.format(
+                    "An issue for rule '%s' was detected by Shellcheck but this rule is deactivated in current analysis.",
+                    rule(index)));
+        } else if(LOGGER.isTraceEnabled()) {
+            LOGGER.trace(String.format("Another issue for deactivated rule '%s' was ignored.", rule(index)));
+        }
+    }
+
+    /**
+     * Count an issue whose file is not indexed in the analysis.
+     *
+     * @param file Name of the file in the report.
+     * @param rule Key of the rule of the issue.
+     */
+    public void missingFile(final String file, final String rule) {
+        final int[] count = missingFiles.computeIfAbsent(file, key -> new int[1]);
+        if(count[0]++ == 0) {
+            LOGGER.debug(String.format(
+                    "Issue '%s' on file '%s' has not been saved because source file was not found.", rule, file));
+        } else if(LOGGER.isTraceEnabled()) {
+            LOGGER.trace(String.format("Another issue '%s' on missing file '%s' was ignored.", rule, file));
+        }
+    }
+
+    /**
+     * Count an issue already saved.
+     *
+     * @param file Name of the file in the report.
+     * @param line Line of the issue.
+     * @param code Number of the shellcheck check.
+     */
+    public void duplicate(final String file, final int line, final int code) {
+        duplicates++;
+        if(LOGGER.isTraceEnabled()) {
+            LOGGER.trace(String.format("Duplicate issue 'ShellCheck.SC%d' on file '%s' at line %d was ignored.", code, file, line));
+        }
+    }
+
+    /**
+     * Getter for the number of duplicate issues.
+     *
+     * @return Number of ignored issues.
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Getter for the number of issues of deactivated rules.
+     *
+     * @return Number of ignored issues.
+     */
+    public int getInactiveRuleIssues() {
+        int total = 0;
+        for(final int count : inactiveRules) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Getter for the number of issues on missing files.
+     *
+     * @return Number of ignored issues.
+     */
+    public int getMissingFileIssues() {
+        int total = 0;
+        for(final int[] count : missingFiles.values()) {
+            total += count[0];
+        }
+        return total;
+    }
+
+    /**
+     * Log a summary of the ignored issues, the most frequent rules and files first.
+     */
+    public void logSummary() {
+        final Map<String, Integer> rules = new HashMap<>();
+        for(int code = 0; code < inactiveRules.length; code++) {
+            if(inactiveRules[code] > 0) {
+                rules.put(rule(code), inactiveRules[code]);
+            }
+        }
+        if(!rules.isEmpty()) {
+            LOGGER.info(String.format("%d issue(s) of %d deactivated rule(s) were ignored: %s.",
+                    getInactiveRuleIssues(), rules.size(), summary(rules)));
+        }
+        if(duplicates > 0) {
+            LOGGER.info(String.format("%d duplicate issue(s) found by several reports were saved once.", duplicates));
+        }
+        final Map<String, Integer> files = new HashMap<>();
+        for(final Map.Entry<String, int[]> file : missingFiles.entrySet()) {
+            files.put(file.getKey(), file.getValue()[0]);
+        }
+        if(!files.isEmpty()) {
+            LOGGER.error(String.format("%d issue(s) were not saved because %d source file(s) were not found: %s.",
+                    getMissingFileIssues(), files.size(), summary(files)));
+        }
+    }
+
+    /**
+     * Print the most frequent keys of a counter.
+     *
+     * @param counts Number of issues by key.
+     * @return A comma separated list of keys followed by their count.
+     */
+    private static String summary(final Map<String, Integer> counts) {
+        final List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        final StringJoiner result = new StringJoiner(", ");
+        for(final Map.Entry<String, Integer> entry : entries.subList(0, Math.min(SUMMARY_SIZE, entries.size()))) {
+            result.add(String.format("%s (%d)", entry.getKey(), entry.getValue()));
+        }
+        if(entries.size() > SUMMARY_SIZE) {
+            result.add(String.format("and %d more", entries.size() - SUMMARY_SIZE));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Print the key of a shellcheck rule.
+     *
+     * @param code Number of the check, 0 if unknown.
+     * @return The rule key.
+     */
+    private static String rule(final int code) {
+        return code > 0 ? "ShellCheck.SC" + code : "unknown";
+    }
+
+}
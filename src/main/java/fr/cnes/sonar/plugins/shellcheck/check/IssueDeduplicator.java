@@ -0,0 +1,166 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.sonar.api.batch.fs.InputFile;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remember saved issues so that an issue found by several reports is saved once.
+ *
+ * An issue is identified by its file, line, column and rule, packed into a long
+ * stored in an open addressing hash set: no object is allocated per issue.
+ * Issues whose positions do not fit in the packed key are remembered as strings.
+ * An instance is used by the sensor thread only.
+ *
+ * @author lequal
+ */
+public class IssueDeduplicator {
+
+    /**
+     * Bits given to each part of a packed key: file, line, column and check number.
+     */
+    private static final int FILE_BITS = 20;
+    private static final int LINE_BITS = 20;
+    private static final int COLUMN_BITS = 12;
+    private static final int CODE_BITS = 12;
+
+    /**
+     * Initial capacity of the table, a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Identifiers given to files, in order of appearance.
+     */
+    private final Map<InputFile, Integer> files = new HashMap<>();
+
+    /**
+     * Packed keys, 0 for an empty slot. A key is never 0 as lines start at 1.
+     */
+    private long[] table = new long[INITIAL_CAPACITY];
+
+    /**
+     * Number of keys in the table.
+     */
+    private int size = 0;
+
+    /**
+     * Keys of the issues which cannot be packed.
+     */
+    private final Set<String> overflow = new HashSet<>();
+
+    /**
+     * Remember an issue.
+     *
+     * @param inputFile File containing the issue.
+     * @param line First line of the issue, 1-based.
+     * @param column First column of the issue, 0 if unknown.
+     * @param code Number of the shellcheck check.
+     * @return True if the issue was never seen, false for a duplicate.
+     */
+    public boolean add(final InputFile inputFile, final int line, final int column, final int code) {
+        Integer file = files.get(inputFile);
+        if(file == null) {
+            file = files.size();
+            files.put(inputFile, file);
+        }
+        final boolean added;
+        if(fits(file, FILE_BITS) && line > 0 && fits(line, LINE_BITS) && fits(column, COLUMN_BITS) && fits(code, CODE_BITS)) {
+            added = add(((long) file << (LINE_BITS + COLUMN_BITS + CODE_BITS))
+                    | ((long) line << (COLUMN_BITS + CODE_BITS))
+                    | ((long) column << CODE_BITS)
+                    | code);
+        } else {
+            added = overflow.add(file + ":" + line + ":" + column + ":" + code);
+        }
+        return added;
+    }
+
+    /**
+     * Insert a packed key in the table.
+     *
+     * @param key Non zero packed key.
+     * @return True if the key was not in the table.
+     */
+    private boolean add(final long key) {
+        int slot = slot(key, table.length);
+        while (table[slot] != 0) {
+            if(table[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        table[slot] = key;
+        size++;
+        // Keep the table at most half full for short probe sequences.
+        if(size * 2 > table.length) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Double the capacity of the table.
+     */
+    private void resize() {
+        final long[] old = table;
+        table = new long[old.length * 2];
+        for(final long key : old) {
+            if(key != 0) {
+                int slot = slot(key, table.length);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (table.length - 1);
+                }
+                table[slot] = key;
+            }
+        }
+    }
+
+    /**
+     * Compute the first slot of a key, mixing its bits as packed keys are not uniform.
+     *
+     * @param key Packed key.
+     * @param capacity Capacity of the table, a power of two.
+     * @return Index of a slot.
+     */
+    private static int slot(final long key, final int capacity) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash & (capacity - 1);
+    }
+
+    /**
+     * Check if a value can be packed in a number of bits.
+     *
+     * @param value Value to pack.
+     * @param bits Number of available bits.
+     * @return True if the value is positive and small enough.
+     */
+    private static boolean fits(final int value, final int bits) {
+        return value >= 0 && value < (1 << bits);
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Length of each line of a file, used to build valid issue ranges.
+ *
+ * The file is read once and the index reused for all issues of the file.
+ * Checkstyle reports count a tab as 8 columns while json1 reports count it as
+ * one character: a column without end position on a line containing tabs
+ * cannot be converted and the whole line is then used.
+ *
+ * @author lequal
+ */
+public class LineIndex {
+
+    /**
+     * Byte order mark, not part of the first line for SonarQube.
+     */
+    private static final char BOM = '\uFEFF';
+
+    /**
+     * Length of each line in characters, line 1 at index 0.
+     */
+    private final int[] lengths;
+
+    /**
+     * Number of lines.
+     */
+    private final int lines;
+
+    /**
+     * Lines containing a tab, line 1 at index 0.
+     */
+    private final BitSet tabs;
+
+    /**
+     * Create an index.
+     *
+     * @param lengths Length of each line, possibly larger than the number of lines.
+     * @param lines Number of lines.
+     * @param tabs Lines containing a tab.
+     */
+    LineIndex(final int[] lengths, final int lines, final BitSet tabs) {
+        this.lengths = lengths;
+        this.lines = lines;
+        this.tabs = tabs;
+    }
+
+    /**
+     * Read a file to index its lines.
+     *
+     * @param inputFile File to read.
+     * @return The index of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static LineIndex of(final InputFile inputFile) throws IOException {
+        int[] lengths = new int[Math.max(1, inputFile.lines())];
+        final BitSet tabs = new BitSet();
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputFile.inputStream(), inputFile.charset()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if(count == 0 && !line.isEmpty() && line.charAt(0) == BOM) {
+                    line = line.substring(1);
+                }
+                if(count == lengths.length) {
+                    lengths = Arrays.copyOf(lengths, count * 2);
+                }
+                lengths[count] = line.length();
+                if(line.indexOf('\t') >= 0) {
+                    tabs.set(count);
+                }
+                count++;
+            }
+        }
+        return new LineIndex(lengths, count, tabs);
+    }
+
+    /**
+     * Compute the range of an issue.
+     *
+     * Without end column, the range goes from the column to the end of the line.
+     * An end beyond its line is moved to the end of the line.
+     *
+     * @param inputFile File containing the issue.
+     * @param line First line of the issue, 1-based.
+     * @param column First column of the issue, 1-based, 0 if unknown.
+     * @param endLine Last line of the issue, 0 if unknown.
+     * @param endColumn Column following the issue, 0 if unknown.
+     * @return The range of the issue, or null if it cannot be built.
+     */
+    public TextRange range(final InputFile inputFile, final int line, final int column,
+                           final int endLine, final int endColumn) {
+        TextRange range = null;
+        if(line >= 1 && line <= lines && column >= 1 && column - 1 < lengths[line - 1]) {
+            final int start = column - 1;
+            int last = line;
+            int end;
+            if(endColumn <= 0) {
+                // Tab expanded columns cannot be converted without the content of the line.
+                end = tabs.get(line - 1) ? start : lengths[line - 1];
+            } else {
+                last = Math.min(lines, Math.max(line, endLine));
+                end = Math.min(endColumn - 1, lengths[last - 1]);
+            }
+            // An empty range cannot be highlighted.
+            if(last > line || end > start) {
+                range = inputFile.newRange(line, start, last, end);
+            }
+        }
+        return range;
+    }
+
+}
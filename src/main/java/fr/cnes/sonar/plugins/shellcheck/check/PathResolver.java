@@ -0,0 +1,172 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolve file names found in shellcheck reports to indexed files.
+ *
+ * Names are resolved once per analysis, including names of files which are not
+ * indexed. Relative names are resolved against the base directory, then
+ * normalized, so different spellings of a path share a single lookup. A path
+ * which is not indexed is resolved again through its symbolic links. An instance
+ * is used by the sensor thread only.
+ *
+ * @author lequal
+ */
+public class PathResolver {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(PathResolver.class);
+
+    /**
+     * File system of the analysis.
+     */
+    private final FileSystem fileSystem;
+
+    /**
+     * Base directory against which relative names are resolved.
+     */
+    private final Path baseDir;
+
+    /**
+     * Resolved files by name as found in reports, null for a file not found.
+     */
+    private final Map<String, InputFile> names = new HashMap<>();
+
+    /**
+     * Resolved files by normalized absolute path, null for a file not found.
+     */
+    private final Map<Path, InputFile> paths = new HashMap<>();
+
+    /**
+     * Create a resolver.
+     *
+     * @param fileSystem File system of the analysis.
+     */
+    public PathResolver(final FileSystem fileSystem) {
+        this.fileSystem = fileSystem;
+        this.baseDir = fileSystem.baseDir().toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Register a file under the name used in reports, so that it is never looked up.
+     *
+     * @param name Name of the file in reports.
+     * @param inputFile Indexed file.
+     */
+    public void register(final String name, final InputFile inputFile) {
+        names.put(name, inputFile);
+    }
+
+    /**
+     * Find the indexed file of a name found in a report.
+     *
+     * @param name Absolute or relative path of the file.
+     * @return The indexed file, or null if it is not indexed.
+     */
+    public InputFile resolve(final String name) {
+        InputFile inputFile = names.get(name);
+        if(inputFile == null && !names.containsKey(name)) {
+            inputFile = lookup(name);
+            names.put(name, inputFile);
+        }
+        return inputFile;
+    }
+
+    /**
+     * Find the indexed file of a name never resolved yet.
+     *
+     * @param name Absolute or relative path of the file.
+     * @return The indexed file, or null if it is not indexed.
+     */
+    private InputFile lookup(final String name) {
+        Path path = null;
+        try {
+            path = baseDir.resolve(name).normalize();
+        } catch (InvalidPathException e) {
+            LOGGER.debug(e.getMessage());
+        }
+        InputFile inputFile = null;
+        if(path != null) {
+            inputFile = paths.get(path);
+            if(inputFile == null && !paths.containsKey(path)) {
+                inputFile = find(path);
+                if(inputFile == null) {
+                    inputFile = findReal(path);
+                }
+                paths.put(path, inputFile);
+            }
+        }
+        if(inputFile == null) {
+            LOGGER.debug(String.format("The source file '%s' was not found.", name));
+        }
+        return inputFile;
+    }
+
+    /**
+     * Query the file system for an absolute path.
+     *
+     * @param path Normalized absolute path.
+     * @return The indexed file, or null.
+     */
+    private InputFile find(final Path path) {
+        return fileSystem.inputFile(fileSystem.predicates().hasAbsolutePath(path.toString()));
+    }
+
+    /**
+     * Query the file system for the real path of a path containing symbolic links.
+     *
+     * @param path Normalized absolute path.
+     * @return The indexed file, or null if the path does not exist or is not indexed.
+     */
+    private InputFile findReal(final Path path) {
+        InputFile inputFile = null;
+        try {
+            final Path real = path.toRealPath();
+            if(!real.equals(path)) {
+                inputFile = find(real);
+            }
+        } catch (IOException e) {
+            // The file does not exist.
+        }
+        if(inputFile == null) {
+            // The base directory itself may be reached through a symbolic link.
+            try {
+                final Path relative = baseDir.toRealPath().relativize(path.toRealPath());
+                inputFile = find(baseDir.resolve(relative));
+            } catch (IOException | IllegalArgumentException e) {
+                // The file does not exist or is outside the base directory.
+            }
+        }
+        return inputFile;
+    }
+
+}
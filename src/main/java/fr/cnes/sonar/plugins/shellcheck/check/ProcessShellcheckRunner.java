@@ -14,29 +14,31 @@
  * You should have received a copy of the GNU General Public License
  * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
  */
-package fr.cnes.sonar.plugins.shellcheck.model;
+package fr.cnes.sonar.plugins.shellcheck.check;
 
-import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlElement;
+import org.sonar.api.batch.ScannerSide;
+
+import java.io.IOException;
+import java.util.List;
 
 /**
- * Class used to unmarshal shellcheck xml file.
- *
- * It contains an issue or a metric.
+ * Start shellcheck as an operating system process.
  *
  * @author lequal
  */
-public class CheckstyleError {
+@ScannerSide
+public class ProcessShellcheckRunner implements ShellcheckRunner {
 
-    @XmlAttribute
-    public String line;
-    @XmlAttribute
-    public String column;
-    @XmlAttribute
-    public String severity;
-    @XmlAttribute
-    public String message;
-    @XmlAttribute
-    public String source;
+    /**
+     * Start a shellcheck process with {@link ProcessBuilder}.
+     *
+     * @param command Executable followed by its arguments.
+     * @return The started process.
+     * @throws IOException If the process cannot be started.
+     */
+    @Override
+    public Process start(final List<String> command) throws IOException {
+        return new ProcessBuilder(command).start();
+    }
 
 }
@@ -0,0 +1,365 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleReader;
+import fr.cnes.sonar.plugins.shellcheck.model.IssueHandler;
+import fr.cnes.sonar.plugins.shellcheck.model.Json1Reader;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Parse shellcheck report files concurrently and replay their issues on a single thread.
+ *
+ * Gzip compressed reports are decompressed while they are parsed, never on disk.
+ * Each report is parsed by a worker of a bounded pool into chunks of issues put in
+ * a bounded queue. The calling thread drains the queues report after report, so
+ * issues are handled in the order of the reports and of their content, by one thread
+ * only. As workers start in submission order, the report being drained is always
+ * being parsed or parsed already, and workers ahead of it block when their queue
+ * is full: memory does not depend on the size of the reports. Thus issues of a
+ * report failing in the middle are already handled: the report is partially
+ * imported and the error given to the caller says so.
+ *
+ * @author lequal
+ */
+public class ReportLoader {
+
+    /**
+     * Number of issues in a chunk.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * Number of chunks a worker can parse ahead of the calling thread.
+     */
+    private static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * Size of the buffers used to read and decompress reports.
+     */
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Maximum number of reports parsed at the same time.
+     */
+    private final int threads;
+
+    /**
+     * Statistics of the analysis, receiving durations of parsing.
+     */
+    private final SensorStatistics statistics;
+
+    /**
+     * Create a loader.
+     *
+     * @param threads Maximum number of reports parsed at the same time.
+     */
+    public ReportLoader(final int threads) {
+        this(threads, new SensorStatistics());
+    }
+
+    /**
+     * Create a loader.
+     *
+     * @param threads Maximum number of reports parsed at the same time.
+     * @param statistics Statistics of the analysis, receiving durations of parsing.
+     */
+    public ReportLoader(final int threads, final SensorStatistics statistics) {
+        this.threads = Math.max(1, threads);
+        this.statistics = statistics;
+    }
+
+    /**
+     * Parse reports and give all their issues to a handler from the calling thread.
+     *
+     * @param reports Report files, in the order their issues are handled.
+     * @param sink Receiver of the issues, only called by the calling thread.
+     * @param onError Receiver of the reports which cannot be read, only called by the calling thread.
+     * @throws InterruptedException If the calling thread is interrupted while waiting a worker.
+     */
+    public void load(final List<File> reports, final IssueHandler sink, final BiConsumer<File, IOException> onError)
+            throws InterruptedException {
+        if(reports.isEmpty()) {
+            return;
+        }
+        final AtomicInteger count = new AtomicInteger();
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, reports.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "shellcheck-report-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // All reports are submitted first, workers start them in this order.
+            final List<BlockingQueue<Chunk>> queues = new ArrayList<>();
+            for(final File report : reports) {
+                final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+                queues.add(queue);
+                pool.execute(() -> parse(report, queue));
+            }
+            for(int i = 0; i < reports.size(); i++) {
+                int imported = 0;
+                Chunk chunk = queues.get(i).take();
+                while (!chunk.last) {
+                    chunk.replay(sink);
+                    imported += chunk.size;
+                    chunk = queues.get(i).take();
+                }
+                chunk.replay(sink);
+                imported += chunk.size;
+                if(chunk.failure != null) {
+                    onError.accept(reports.get(i), partial(chunk.failure, imported));
+                }
+            }
+        } finally {
+            // Interrupt workers blocked on a queue that will never be drained.
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Tell in the error of a report whether some of its issues were imported.
+     *
+     * @param failure Error which stopped the parsing of the report.
+     * @param imported Number of issues of the report already handled.
+     * @return The given error if no issue was imported, a partial import error otherwise.
+     */
+    private static IOException partial(final IOException failure, final int imported) {
+        return imported == 0 ? failure : new IOException(String.format(
+                "%s, the report is partially imported: %d issue(s) imported before the error.",
+                failure.getMessage(), imported), failure);
+    }
+
+    /**
+     * Parse a report into a queue, the last chunk is always put even on failure.
+     *
+     * @param report Report file to parse.
+     * @param queue Queue receiving the chunks.
+     */
+    private void parse(final File report, final BlockingQueue<Chunk> queue) {
+        final ChunkWriter writer = new ChunkWriter(queue);
+        final long started = statistics.start();
+        boolean cancelled = false;
+        try (InputStream input = statistics.count(open(report))) {
+            if(isJson(input)) {
+                Json1Reader.read(input, writer);
+            } else {
+                CheckstyleReader.read(input, writer);
+            }
+            statistics.stop(SensorStatistics.Phase.PARSING, started);
+        } catch (IOException e) {
+            writer.chunk.failure = e;
+        } catch (CancellationException e) {
+            // Loading is cancelled, nobody waits for this report anymore.
+            cancelled = true;
+        } catch (RuntimeException e) {
+            writer.chunk.failure = new IOException(e.getMessage(), e);
+        } catch (Throwable e) {
+            // Errors such as a stack overflow only stop this report.
+            writer.chunk.failure = new IOException(e.toString(), e);
+        } finally {
+            // The calling thread must not wait forever for the last chunk.
+            if(!cancelled) {
+                put(queue, writer.chunk);
+            }
+        }
+    }
+
+    /**
+     * Put the last chunk of a report in its queue.
+     *
+     * @param queue Queue of the report.
+     * @param chunk Last chunk, with the error which stopped the parsing if any.
+     */
+    private static void put(final BlockingQueue<Chunk> queue, final Chunk chunk) {
+        chunk.last = true;
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Open a report file, decompressing it on the fly if it is gzip compressed.
+     *
+     * @param report Report file to open.
+     * @return A buffered stream supporting marks.
+     * @throws IOException If the file cannot be opened.
+     */
+    static InputStream open(final File report) throws IOException {
+        final InputStream input = new BufferedInputStream(new FileInputStream(report), BUFFER_SIZE);
+        try {
+            // Compressed reports are recognized by their magic number rather than their name.
+            input.mark(2);
+            final boolean gzip = input.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+                    && input.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+            input.reset();
+            return gzip ? new BufferedInputStream(new GZIPInputStream(input, BUFFER_SIZE), BUFFER_SIZE) : input;
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Check if a report is a json report by looking at its first significant character.
+     *
+     * @param input Report supporting marks, left at its beginning.
+     * @return True for a json or json1 report, false for a checkstyle report.
+     * @throws IOException If the report cannot be read.
+     */
+    static boolean isJson(final InputStream input) throws IOException {
+        input.mark(1024);
+        int c = input.read();
+        int read = 1;
+        // Skip whitespaces and a byte order mark.
+        while (read < 1024 && (Character.isWhitespace(c) || c == 0xEF || c == 0xBB || c == 0xBF)) {
+            c = input.read();
+            read++;
+        }
+        input.reset();
+        return c == '{' || c == '[';
+    }
+
+    /**
+     * Issues parsed by a worker, stored in columns.
+     */
+    private static final class Chunk {
+
+        /**
+         * Number of stored issues.
+         */
+        private int size = 0;
+
+        /**
+         * True for the last chunk of a report.
+         */
+        private boolean last = false;
+
+        /**
+         * Error which stopped the parsing of the report, only set on the last chunk.
+         */
+        private IOException failure = null;
+
+        /**
+         * Files of the stored issues.
+         */
+        private final String[] files = new String[CHUNK_SIZE];
+
+        /**
+         * First lines of the stored issues.
+         */
+        private final int[] lines = new int[CHUNK_SIZE];
+
+        /**
+         * Last lines of the stored issues, 0 if unknown.
+         */
+        private final int[] endLines = new int[CHUNK_SIZE];
+
+        /**
+         * First columns of the stored issues.
+         */
+        private final int[] columns = new int[CHUNK_SIZE];
+
+        /**
+         * Columns following the stored issues, 0 if unknown.
+         */
+        private final int[] endColumns = new int[CHUNK_SIZE];
+
+        /**
+         * Severities of the stored issues, as given by shellcheck.
+         */
+        private final String[] levels = new String[CHUNK_SIZE];
+
+        /**
+         * Shellcheck codes of the stored issues.
+         */
+        private final int[] codes = new int[CHUNK_SIZE];
+
+        /**
+         * Messages of the stored issues.
+         */
+        private final String[] messages = new String[CHUNK_SIZE];
+
+        /**
+         * Give the stored issues to a handler.
+         *
+         * @param handler Receiver of the issues.
+         */
+        private void replay(final IssueHandler handler) {
+            for(int i = 0; i < size; i++) {
+                handler.comment(files[i], lines[i], endLines[i], columns[i], endColumns[i], levels[i], codes[i], messages[i]);
+            }
+        }
+    }
+
+    /**
+     * Handler storing issues into chunks and putting full chunks into a queue.
+     */
+    private static final class ChunkWriter implements IssueHandler {
+
+        /**
+         * Queue receiving full chunks.
+         */
+        private final BlockingQueue<Chunk> queue;
+
+        /**
+         * Chunk being filled.
+         */
+        private Chunk chunk = new Chunk();
+
+        /**
+         * Create a writer.
+         *
+         * @param queue Queue receiving full chunks.
+         */
+        private ChunkWriter(final BlockingQueue<Chunk> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void comment(final String file, final int line, final int endLine, final int column, final int endColumn,
+                            final String level, final int code, final String message) {
+            final int i = chunk.size++;
+            chunk.files[i] = file;
+            chunk.lines[i] = line;
+            chunk.endLines[i] = endLine;
+            chunk.columns[i] = column;
+            chunk.endColumns[i] = endColumn;
+            chunk.levels[i] = level;
+            chunk.codes[i] = code;
+            chunk.messages[i] = message;
+            if(chunk.size == CHUNK_SIZE) {
+                try {
+                    queue.put(chunk);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Report loading is cancelled.");
+                }
+                chunk = new Chunk();
+            }
+        }
+    }
+
+}
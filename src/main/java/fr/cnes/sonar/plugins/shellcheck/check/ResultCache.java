@@ -0,0 +1,376 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.model.IssueBatch;
+import fr.cnes.sonar.plugins.shellcheck.model.Severity;
+import fr.cnes.sonar.plugins.shellcheck.model.StringPool;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * On-disk cache of shellcheck diagnostics.
+ *
+ * Entries are keyed by a hash of the file content, the shellcheck version,
+ * the interpreter and the shellcheck configuration files found from the
+ * directory of the file up to the base directory, so an entry stays valid as
+ * long as none of them change. Configuration files outside the base
+ * directory, such as the one of the user home, are not part of the key.
+ * Diagnostics are stored before rules filtering, thus active rules are not part
+ * of the key. An instance is used by a single analysis, from a single thread.
+ *
+ * @author lequal
+ */
+public class ResultCache {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(ResultCache.class);
+
+    /**
+     * Algorithm used to compute keys.
+     */
+    private static final String DIGEST = "SHA-256";
+
+    /**
+     * Characters used to print keys.
+     */
+    private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+
+    /**
+     * Layout of the entries, part of the keys so that entries of another layout are never read.
+     */
+    private static final byte LAYOUT = 3;
+
+    /**
+     * Name of shellcheck configuration files.
+     */
+    private static final String CONFIGURATION = ".shellcheckrc";
+
+    /**
+     * Directory containing cache entries.
+     */
+    private final File directory;
+
+    /**
+     * Version of shellcheck producing the diagnostics.
+     */
+    private final String version;
+
+    /**
+     * Directory up to which configuration files are searched.
+     */
+    private final File baseDir;
+
+    /**
+     * Content of the configuration file of each visited directory, null if it has none.
+     */
+    private final Map<File, byte[]> configurations = new HashMap<>();
+
+    /**
+     * Keys of missed files, by name of the file in shellcheck reports.
+     */
+    private final Map<String, String> pending = new HashMap<>();
+
+    /**
+     * Number of files found in the cache.
+     */
+    private int hits = 0;
+
+    /**
+     * Number of files not found in the cache.
+     */
+    private int misses = 0;
+
+    /**
+     * Create a cache.
+     *
+     * @param directory Directory containing cache entries, created if needed.
+     * @param version Version and output format of shellcheck producing the diagnostics.
+     * @param baseDir Directory up to which configuration files are searched.
+     */
+    public ResultCache(final File directory, final String version, final File baseDir) {
+        this.directory = directory;
+        this.version = version;
+        this.baseDir = baseDir.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    /**
+     * Compute the key of a file.
+     *
+     * @param interpreter Dialect given to shellcheck.
+     * @param inputFile File to analyse.
+     * @return A hexadecimal string.
+     * @throws IOException If the file cannot be read.
+     */
+    String key(final String interpreter, final InputFile inputFile) throws IOException {
+        final MessageDigest digest = newDigest();
+        digest.update(LAYOUT);
+        digest.update(version.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(interpreter.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        try (InputStream content = inputFile.inputStream()) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        // Shellcheck reads the nearest configuration file, whose edition changes results.
+        File parent = new File(inputFile.uri()).toPath().toAbsolutePath().normalize().toFile().getParentFile();
+        int level = 0;
+        while (parent != null) {
+            final byte[] configuration = configuration(parent);
+            if (configuration != null) {
+                digest.update(String.format("%d:%d:", level, configuration.length).getBytes(StandardCharsets.UTF_8));
+                digest.update(configuration);
+            }
+            parent = parent.equals(baseDir) ? null : parent.getParentFile();
+            level++;
+        }
+        final byte[] hash = digest.digest();
+        final char[] result = new char[hash.length * 2];
+        for(int i = 0; i < hash.length; i++) {
+            result[2 * i] = HEXADECIMAL[(hash[i] >> 4) & 0xF];
+            result[2 * i + 1] = HEXADECIMAL[hash[i] & 0xF];
+        }
+        return new String(result);
+    }
+
+    /**
+     * Read the configuration file of a directory, each directory being read once.
+     *
+     * @param parent Directory of the configuration file.
+     * @return Content of the configuration file, null if there is none.
+     * @throws IOException If the configuration file cannot be read.
+     */
+    private byte[] configuration(final File parent) throws IOException {
+        if (!configurations.containsKey(parent)) {
+            final File configuration = new File(parent, CONFIGURATION);
+            configurations.put(parent, configuration.isFile() ? Files.readAllBytes(configuration.toPath()) : null);
+        }
+        return configurations.get(parent);
+    }
+
+    /**
+     * Retrieve diagnostics of a file.
+     *
+     * On a miss, the key of the file is kept until its diagnostics are given to {@link #put(IssueBatch)}.
+     *
+     * @param interpreter Dialect given to shellcheck.
+     * @param inputFile File to analyse.
+     * @param name Name of the file in shellcheck reports.
+     * @param batch Batch receiving the cached diagnostics.
+     * @return True if the diagnostics were cached.
+     * @throws IOException If the file cannot be read.
+     */
+    public boolean get(final String interpreter, final InputFile inputFile, final String name,
+                       final IssueBatch batch) throws IOException {
+        final String key = key(interpreter, inputFile);
+        final File entry = entry(key);
+        boolean found = false;
+        if(entry.isFile()) {
+            // Diagnostics are read aside so that a corrupted entry leaves the batch untouched.
+            final IssueBatch read = new IssueBatch(new StringPool());
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)))) {
+                read.file(name);
+                final int count = input.readInt();
+                for(int i = 0; i < count; i++) {
+                    final int line = input.readInt();
+                    final int endLine = input.readInt();
+                    final int column = input.readInt();
+                    final int endColumn = input.readInt();
+                    final Severity severity = Severity.of(input.readByte());
+                    final int code = input.readInt();
+                    read.add(name, line, endLine, column, endColumn, severity, code, input.readUTF());
+                }
+                // Recently used entries are the last ones to be evicted.
+                entry.setLastModified(System.currentTimeMillis());
+                batch.addAll(read);
+                found = true;
+            } catch (IOException e) {
+                LOGGER.debug(e.getMessage(), e);
+            }
+        }
+        if(found) {
+            hits++;
+        } else {
+            misses++;
+            pending.put(name, key);
+        }
+        return found;
+    }
+
+    /**
+     * Store diagnostics of the files previously missed.
+     *
+     * @param batch Batch containing diagnostics of the missed files.
+     */
+    public void put(final IssueBatch batch) {
+        final List<String> files = batch.getFiles();
+        final int[][] issues = batch.issuesByFile();
+        for(int i = 0; i < issues.length; i++) {
+            final String key = pending.remove(files.get(i));
+            if(key != null) {
+                put(key, files.get(i), batch, issues[i]);
+            }
+        }
+    }
+
+    /**
+     * Store diagnostics of a file.
+     *
+     * @param key Key of the file.
+     * @param name Name of the file in shellcheck reports.
+     * @param batch Batch containing the diagnostics.
+     * @param issues Indexes of the diagnostics of the file in the batch.
+     */
+    private void put(final String key, final String name, final IssueBatch batch, final int[] issues) {
+        final File entry = entry(key);
+        try {
+            entry.getParentFile().mkdirs();
+            // Entries are renamed so that a concurrent analysis never reads a partial one.
+            final File temporary = File.createTempFile(key, ".tmp", entry.getParentFile());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                output.writeInt(issues.length);
+                for(final int issue : issues) {
+                    final Severity severity = batch.getSeverity(issue);
+                    output.writeInt(batch.getLine(issue));
+                    output.writeInt(batch.getEndLine(issue));
+                    output.writeInt(batch.getColumn(issue));
+                    output.writeInt(batch.getEndColumn(issue));
+                    output.writeByte(severity == null ? -1 : severity.ordinal());
+                    output.writeInt(batch.getCode(issue));
+                    output.writeUTF(valueOf(batch.getMessage(issue)));
+                }
+            }
+            if(!temporary.renameTo(entry) && !temporary.delete()) {
+                temporary.deleteOnExit();
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Shellcheck results of '%s' could not be cached.", name), e);
+        }
+    }
+
+    /**
+     * Remove entries older than a maximum age, then the least recently used
+     * entries until the cache fits its maximum size.
+     *
+     * @param maxSize Maximum size of the cache in bytes.
+     * @param maxAge Maximum age of an entry in milliseconds.
+     */
+    public void evict(final long maxSize, final long maxAge) {
+        final List<File> entries = new ArrayList<>();
+        final File[] buckets = directory.listFiles(File::isDirectory);
+        if(buckets != null) {
+            for(final File bucket : buckets) {
+                final File[] files = bucket.listFiles(File::isFile);
+                if(files != null) {
+                    for(final File file : files) {
+                        entries.add(file);
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(File::lastModified));
+        final long oldest = System.currentTimeMillis() - maxAge;
+        long size = 0;
+        for(final File entry : entries) {
+            size += entry.length();
+        }
+        int evicted = 0;
+        for(final File entry : entries) {
+            if(entry.lastModified() >= oldest && size <= maxSize) {
+                break;
+            }
+            size -= entry.length();
+            if(entry.delete()) {
+                evicted++;
+            }
+        }
+        LOGGER.debug(String.format("%d shellcheck cache entries evicted.", evicted));
+    }
+
+    /**
+     * Log the number of hits and misses of the cache.
+     */
+    public void logStatistics() {
+        LOGGER.info(String.format("Shellcheck cache: %d hit(s), %d miss(es).", hits, misses));
+    }
+
+    /**
+     * Getter for the number of hits.
+     *
+     * @return Number of files whose diagnostics were cached.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter for the number of misses.
+     *
+     * @return Number of files whose diagnostics were not cached.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Locate the entry of a key, entries are spread in sub-directories.
+     *
+     * @param key Key of the entry.
+     * @return The file of the entry, which may not exist.
+     */
+    private File entry(final String key) {
+        return new File(new File(directory, key.substring(0, 2)), key);
+    }
+
+    /**
+     * Convert a possibly null attribute for storage.
+     *
+     * @param value Attribute to store.
+     * @return The attribute or an empty string.
+     */
+    private static String valueOf(final String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Create the digest used to compute keys.
+     *
+     * @return A new digest.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,354 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Durations and counters of the phases of an analysis.
+ *
+ * Phases run by workers (execution and parsing) are summed over all threads,
+ * so their total may exceed the duration of the analysis. Parsing of the
+ * auto-launch output happens while shellcheck runs, thus it is also part of
+ * the execution time. An instance can be updated by several threads.
+ *
+ * @author lequal
+ */
+public class SensorStatistics {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(SensorStatistics.class);
+
+    /**
+     * Measured phases.
+     */
+    public enum Phase {
+        /** Listing of the shell files and of the report files. */
+        DISCOVERY("discovery"),
+        /** Reading of the shebang of each shell file. */
+        CLASSIFICATION("classification"),
+        /** Run of a shellcheck process, from its start to its end. */
+        EXECUTION("execution"),
+        /** Parsing of a shellcheck output or of a report file. */
+        PARSING("parsing"),
+        /** Resolution of the file of an issue. */
+        RESOLUTION("resolution"),
+        /** Indexing of the lines of a file and creation of an issue. */
+        SAVING("saving");
+
+        /**
+         * Name of the phase in the summary.
+         */
+        private final String label;
+
+        /**
+         * Create a phase.
+         *
+         * @param label Name of the phase in the summary.
+         */
+        Phase(final String label) {
+            this.label = label;
+        }
+
+        /**
+         * Getter for the name of the phase.
+         *
+         * @return Name of the phase in the summary.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Counted events.
+     */
+    public enum Counter {
+        /** Shell files of the project. */
+        FILES("files"),
+        /** Lines of the shell files of the project. */
+        LINES("lines"),
+        /** Shellcheck processes. */
+        BATCHES("batches"),
+        /** Issues read from shellcheck outputs and reports. */
+        DIAGNOSTICS("diagnostics"),
+        /** Distinct issues on files of the project, active rules or not. */
+        PROJECT_DIAGNOSTICS("projectDiagnostics"),
+        /** Issues saved. */
+        SAVED("savedIssues"),
+        /** Issues not saved, see {@link IgnoredIssues}. */
+        IGNORED("ignoredIssues"),
+        /** Bytes of shellcheck outputs and reports. */
+        BYTES("bytesRead");
+
+        /**
+         * Name of the counter in the summary.
+         */
+        private final String label;
+
+        /**
+         * Create a counter.
+         *
+         * @param label Name of the counter in the summary.
+         */
+        Counter(final String label) {
+            this.label = label;
+        }
+
+        /**
+         * Getter for the name of the counter.
+         *
+         * @return Name of the counter in the summary.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Number of times each phase ran, by ordinal.
+     */
+    private final AtomicLongArray calls = new AtomicLongArray(Phase.values().length);
+
+    /**
+     * Total duration of each phase in nanoseconds, by ordinal.
+     */
+    private final AtomicLongArray totals = new AtomicLongArray(Phase.values().length);
+
+    /**
+     * Longest run of each phase in nanoseconds, by ordinal.
+     */
+    private final AtomicLongArray maximums = new AtomicLongArray(Phase.values().length);
+
+    /**
+     * Value of each counter, by ordinal.
+     */
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+    /**
+     * Start of the analysis.
+     */
+    private final long start = System.nanoTime();
+
+    /**
+     * Start measuring a run of a phase.
+     *
+     * @return A timestamp to give to {@link #stop(Phase, long)}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Stop measuring a run of a phase.
+     *
+     * @param phase Measured phase.
+     * @param started Timestamp given by {@link #start()}.
+     */
+    public void stop(final Phase phase, final long started) {
+        final long duration = System.nanoTime() - started;
+        calls.incrementAndGet(phase.ordinal());
+        totals.addAndGet(phase.ordinal(), duration);
+        long maximum = maximums.get(phase.ordinal());
+        while (duration > maximum && !maximums.compareAndSet(phase.ordinal(), maximum, duration)) {
+            maximum = maximums.get(phase.ordinal());
+        }
+    }
+
+    /**
+     * Increase a counter.
+     *
+     * @param counter Counter to increase.
+     * @param value Value to add.
+     */
+    public void add(final Counter counter, final long value) {
+        counters.addAndGet(counter.ordinal(), value);
+    }
+
+    /**
+     * Getter for a counter.
+     *
+     * @param counter Counter to read.
+     * @return Its value.
+     */
+    public long get(final Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    /**
+     * Getter for the number of runs of a phase.
+     *
+     * @param phase Phase to read.
+     * @return Number of runs.
+     */
+    public long getCalls(final Phase phase) {
+        return calls.get(phase.ordinal());
+    }
+
+    /**
+     * Getter for the total duration of a phase.
+     *
+     * @param phase Phase to read.
+     * @return Duration in milliseconds.
+     */
+    public long getMillis(final Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(totals.get(phase.ordinal()));
+    }
+
+    /**
+     * Getter for the longest run of a phase.
+     *
+     * @param phase Phase to read.
+     * @return Duration in milliseconds.
+     */
+    public long getMaxMillis(final Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(maximums.get(phase.ordinal()));
+    }
+
+    /**
+     * Getter for the time elapsed since the creation of the statistics.
+     *
+     * @return Duration in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Count the bytes read from a stream, bytes read again after a reset are counted once.
+     *
+     * @param input Stream to count.
+     * @return A stream adding its read bytes to {@link Counter#BYTES}.
+     */
+    public InputStream count(final InputStream input) {
+        return new FilterInputStream(input) {
+
+            /**
+             * Bytes read since the last mark.
+             */
+            private long sinceMark = 0;
+
+            @Override
+            public int read() throws IOException {
+                final int result = super.read();
+                if(result >= 0) {
+                    counted(1);
+                }
+                return result;
+            }
+
+            @Override
+            public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+                final int result = super.read(buffer, offset, length);
+                if(result > 0) {
+                    counted(result);
+                }
+                return result;
+            }
+
+            @Override
+            public long skip(final long length) throws IOException {
+                final long result = super.skip(length);
+                counted(result);
+                return result;
+            }
+
+            @Override
+            public synchronized void mark(final int limit) {
+                super.mark(limit);
+                sinceMark = 0;
+            }
+
+            @Override
+            public synchronized void reset() throws IOException {
+                super.reset();
+                counted(-sinceMark);
+                sinceMark = 0;
+            }
+
+            /**
+             * Account read bytes.
+             *
+             * @param bytes Number of bytes, negative when going back.
+             */
+            private void counted(final long bytes) {
+                sinceMark += bytes;
+                add(Counter.BYTES, bytes);
+            }
+        };
+    }
+
+    /**
+     * Log a table of the phases and counters.
+     */
+    public void logSummary() {
+        final StringBuilder summary = new StringBuilder(String.format(
+                "Shellcheck sensor statistics (%d ms, worker phases summed over threads):", getElapsedMillis()));
+        summary.append(String.format("%n  %-16s %8s %12s %12s", "phase", "runs", "total (ms)", "max (ms)"));
+        for(final Phase phase : Phase.values()) {
+            summary.append(String.format("%n  %-16s %8d %12d %12d", phase.getLabel(), getCalls(phase),
+                    getMillis(phase), getMaxMillis(phase)));
+        }
+        for(final Counter counter : Counter.values()) {
+            summary.append(String.format("%n  %-16s %8d", counter.getLabel(), get(counter)));
+        }
+        LOGGER.info(summary.toString());
+    }
+
+    /**
+     * Write the phases and counters as JSON.
+     *
+     * @param file File to write, replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(final File file) throws IOException {
+        final StringBuilder json = new StringBuilder("{\n  \"elapsedMillis\": ").append(getElapsedMillis())
+                .append(",\n  \"phases\": {");
+        String separator = "\n";
+        for(final Phase phase : Phase.values()) {
+            json.append(separator).append(String.format(Locale.ENGLISH,
+                    "    \"%s\": {\"runs\": %d, \"totalMillis\": %d, \"maxMillis\": %d}",
+                    phase.getLabel(), getCalls(phase), getMillis(phase), getMaxMillis(phase)));
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"counters\": {");
+        separator = "\n";
+        for(final Counter counter : Counter.values()) {
+            json.append(separator).append(String.format("    \"%s\": %d", counter.getLabel(), get(counter)));
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+}
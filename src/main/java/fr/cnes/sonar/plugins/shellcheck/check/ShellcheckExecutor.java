@@ -0,0 +1,827 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleReader;
+import fr.cnes.sonar.plugins.shellcheck.model.IssueBatch;
+import fr.cnes.sonar.plugins.shellcheck.model.Json1Reader;
+import fr.cnes.sonar.plugins.shellcheck.model.StringPool;
+import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Run shellcheck processes on a bounded pool of workers.
+ *
+ * Files of an interpreter are split into shards, each shard being analysed
+ * by its own shellcheck processes. A shard is itself split into batches so
+ * that no command line exceeds the platform limit. A watchdog kills processes
+ * running longer than the configured timeout, and the files of a killed
+ * batch are analysed again in two halves. The checkstyle or json1 output of a process is parsed
+ * by a dedicated thread while it is produced, without intermediate file. Results are given back in
+ * submission order so that imported issues do not depend on workers scheduling.
+ *
+ * @author lequal
+ */
+public class ShellcheckExecutor {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(ShellcheckExecutor.class);
+
+    /**
+     * Bytes taken by a pointer in the process arguments or environment arrays.
+     */
+    private static final int POINTER_SIZE = 8;
+
+    /**
+     * Starter of shellcheck processes.
+     */
+    private final ShellcheckRunner runner;
+
+    /**
+     * Path or name of the shellcheck executable.
+     */
+    private final String executable;
+
+    /**
+     * Output format asked to shellcheck, checkstyle or json1.
+     */
+    private final String format;
+
+    /**
+     * Workers running shellcheck processes.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Maximum number of processes run at the same time.
+     */
+    private final int threads;
+
+    /**
+     * Maximum number of files given to a single process, 0 for no limit.
+     */
+    private final int batchSize;
+
+    /**
+     * Maximum size of the command line of a process, in bytes.
+     */
+    private final long maxCommandLength;
+
+    /**
+     * Directory where raw outputs are copied, null if they are not kept.
+     */
+    private final File resultsDir;
+
+    /**
+     * True if shellcheck follows files given to the source command.
+     */
+    private final boolean externalSources;
+
+    /**
+     * Watchdog killing processes running for too long.
+     */
+    private final ScheduledExecutorService watchdog;
+
+    /**
+     * Maximum duration of a process in milliseconds, 0 for no limit.
+     */
+    private final long batchTimeout;
+
+    /**
+     * Instant (as given by {@link System#nanoTime()}) after which no process is run, null for no limit.
+     */
+    private final Long deadline;
+
+    /**
+     * Statistics of the analysis, updated by the workers.
+     */
+    private final SensorStatistics statistics;
+
+    /**
+     * Timeline of the shellcheck processes.
+     */
+    private final TraceRecorder trace;
+
+    /**
+     * Pool sharing messages between all reports of the analysis.
+     */
+    private final StringPool messages = new StringPool();
+
+    /**
+     * Number of submitted batches, used to name raw outputs.
+     */
+    private int batches = 0;
+
+    /**
+     * Create an executor with a bounded number of workers.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @param workDir Working directory of the analysis, where raw outputs are copied on demand.
+     * @param runner Starter of shellcheck processes.
+     */
+    public ShellcheckExecutor(final Configuration config, final File workDir, final ShellcheckRunner runner) {
+        this(config, workDir, runner, new SensorStatistics());
+    }
+
+    /**
+     * Create an executor with a bounded number of workers.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @param workDir Working directory of the analysis, where raw outputs are copied on demand.
+     * @param runner Starter of shellcheck processes.
+     * @param statistics Statistics of the analysis, receiving durations of executions and parsing.
+     */
+    public ShellcheckExecutor(final Configuration config, final File workDir, final ShellcheckRunner runner,
+                              final SensorStatistics statistics) {
+        this(config, workDir, runner, statistics, new TraceRecorder(false));
+    }
+
+    /**
+     * Create an executor with a bounded number of workers.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @param workDir Working directory of the analysis, where raw outputs are copied on demand.
+     * @param runner Starter of shellcheck processes.
+     * @param statistics Statistics of the analysis, receiving durations of executions and parsing.
+     * @param trace Timeline receiving the spans of each shellcheck process.
+     */
+    public ShellcheckExecutor(final Configuration config, final File workDir, final ShellcheckRunner runner,
+                              final SensorStatistics statistics, final TraceRecorder trace) {
+        this.runner = runner;
+        this.statistics = statistics;
+        this.trace = trace;
+        this.executable = config.get(ShellcheckPluginProperties.EXECUTABLE_PROP_KEY)
+                .orElse(ShellcheckPluginProperties.EXECUTABLE_PROP_DEFAULT);
+        this.format = getFormat(config);
+        this.threads = getThreads(config);
+        this.pool = Executors.newFixedThreadPool(this.threads);
+        this.batchSize = Math.max(0, config.getInt(ShellcheckPluginProperties.BATCH_SIZE_PROP_KEY)
+                .orElse(Integer.parseInt(ShellcheckPluginProperties.BATCH_SIZE_PROP_DEFAULT)));
+        // The environment only shares the arguments limit on POSIX systems.
+        this.maxCommandLength = getMaxCommandLength() - (isWindows() ? 0 : environmentLength());
+        // Raw outputs are only written on demand, for debugging.
+        final boolean keepResults = config.getBoolean(ShellcheckPluginProperties.KEEP_RESULTS_PROP_KEY)
+                .orElse(Boolean.parseBoolean(ShellcheckPluginProperties.KEEP_RESULTS_PROP_DEFAULT));
+        this.resultsDir = keepResults ? workDir : null;
+        this.externalSources = isFollowingSources(config);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "shellcheck-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchTimeout = TimeUnit.SECONDS.toMillis(Math.max(0, config.getLong(ShellcheckPluginProperties.TIMEOUT_PROP_KEY)
+                .orElse(Long.parseLong(ShellcheckPluginProperties.TIMEOUT_PROP_DEFAULT))));
+        final long totalTimeout = config.getLong(ShellcheckPluginProperties.TOTAL_TIMEOUT_PROP_KEY)
+                .orElse(Long.parseLong(ShellcheckPluginProperties.TOTAL_TIMEOUT_PROP_DEFAULT));
+        this.deadline = totalTimeout > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(totalTimeout) : null;
+    }
+
+    /**
+     * Retrieve the number of shellcheck processes allowed to run at the same time.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @return A strictly positive number, available processors by default.
+     */
+    public static int getThreads(final Configuration config) {
+        final int threads = config.getInt(ShellcheckPluginProperties.THREADS_PROP_KEY).orElse(0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Retrieve the output format asked to shellcheck.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @return json1 if asked, checkstyle otherwise.
+     */
+    public static String getFormat(final Configuration config) {
+        final String format = config.get(ShellcheckPluginProperties.FORMAT_PROP_KEY)
+                .orElse(ShellcheckPluginProperties.FORMAT_PROP_DEFAULT);
+        return ShellcheckPluginProperties.FORMAT_JSON1.equals(format) ?
+                ShellcheckPluginProperties.FORMAT_JSON1 : ShellcheckPluginProperties.FORMAT_CHECKSTYLE;
+    }
+
+    /**
+     * Check if shellcheck is asked to follow files given to the source command.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @return True if external sources are followed.
+     */
+    public static boolean isFollowingSources(final Configuration config) {
+        return config.getBoolean(ShellcheckPluginProperties.EXTERNAL_SOURCES_PROP_KEY)
+                .orElse(Boolean.parseBoolean(ShellcheckPluginProperties.EXTERNAL_SOURCES_PROP_DEFAULT));
+    }
+
+    /**
+     * Split files into batches and submit one shellcheck execution per batch.
+     *
+     * @param interpreter Dialect given to shellcheck.
+     * @param files Absolute paths of the files to analyse.
+     * @return Pending reports, in the order of the batches.
+     */
+    public List<Future<IssueBatch>> submit(final String interpreter, final List<String> files) {
+        final List<Future<IssueBatch>> results = new ArrayList<>();
+        final long available = maxCommandLength - commandLength(command(interpreter, new ArrayList<>()));
+        for(final List<String> shard : shard(files, threads)) {
+            for(final List<String> batch : batch(shard, batchSize, available)) {
+                final File output = resultsDir == null ? null :
+                        new File(resultsDir, String.format("%s-%d-shellcheck.res", interpreter, batches));
+                batches++;
+                results.add(pool.submit(() -> analyse(interpreter, batch, output)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Stop all workers, pending executions are cancelled.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Split a list into at most a given number of contiguous and balanced shards.
+     *
+     * @param files List to split.
+     * @param count Maximum number of shards.
+     * @param <T> Type of the elements.
+     * @return A possibly empty list of non empty shards.
+     */
+    static <T> List<List<T>> shard(final List<T> files, final int count) {
+        final List<List<T>> result = new ArrayList<>();
+        final int shards = Math.min(Math.max(1, count), files.size());
+        int start = 0;
+        for(int i = 0; i < shards; i++) {
+            // The first shards take the remainder of the division.
+            final int end = start + files.size() / shards + (i < files.size() % shards ? 1 : 0);
+            result.add(new ArrayList<>(files.subList(start, end)));
+            start = end;
+        }
+        return result;
+    }
+
+    /**
+     * Split a list of files into contiguous batches small enough for a command line.
+     *
+     * A file whose path alone exceeds the available length is still given its own batch.
+     *
+     * @param files List to split.
+     * @param maxFiles Maximum number of files in a batch, 0 for no limit.
+     * @param maxLength Maximum length taken by the files of a batch, in bytes.
+     * @return A possibly empty list of non empty batches.
+     */
+    static List<List<String>> batch(final List<String> files, final int maxFiles, final long maxLength) {
+        final List<List<String>> result = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        long length = 0;
+        for(final String file : files) {
+            final long fileLength = argumentLength(file);
+            final boolean full = maxFiles > 0 && current.size() >= maxFiles;
+            if(!current.isEmpty() && (full || length + fileLength > maxLength)) {
+                result.add(current);
+                current = new ArrayList<>();
+                length = 0;
+            }
+            current.add(file);
+            length += fileLength;
+        }
+        if(!current.isEmpty()) {
+            result.add(current);
+        }
+        return result;
+    }
+
+    /**
+     * Build the arguments of a shellcheck execution.
+     *
+     * @param interpreter Dialect given to shellcheck.
+     * @param files Absolute paths of the files to analyse.
+     * @return The command, each argument being a distinct element.
+     */
+    List<String> command(final String interpreter, final List<String> files) {
+        final List<String> command = new ArrayList<>();
+        command.add(executable);
+        command.add("--shell=" + interpreter);
+        command.add("--format=" + format);
+        if(externalSources) {
+            command.add("--external-sources");
+        }
+        command.addAll(files);
+        return command;
+    }
+
+    /**
+     * Compute the size taken by a command in the process arguments.
+     *
+     * @param command Arguments of the command.
+     * @return A size in bytes.
+     */
+    static long commandLength(final List<String> command) {
+        long length = 0;
+        for(final String argument : command) {
+            length += argumentLength(argument);
+        }
+        return length;
+    }
+
+    /**
+     * Compute the size taken by an argument: its encoded bytes,
+     * its terminating character and its pointer.
+     *
+     * @param argument Argument of a command.
+     * @return A size in bytes.
+     */
+    private static long argumentLength(final String argument) {
+        return argument.getBytes(Charset.defaultCharset()).length + 1L + POINTER_SIZE;
+    }
+
+    /**
+     * Compute the size taken by the environment inherited by processes,
+     * it shares the arguments limit on POSIX systems but not on Windows.
+     *
+     * @return A size in bytes.
+     */
+    private static long environmentLength() {
+        long length = 0;
+        for(final Map.Entry<String, String> variable : System.getenv().entrySet()) {
+            length += argumentLength(variable.getKey() + "=" + variable.getValue());
+        }
+        return length;
+    }
+
+    /**
+     * Give a conservative limit for the size of a command line.
+     *
+     * Windows limits a command line to 32767 characters. Other systems are
+     * given 128 KiB, below the ARG_MAX of Linux, macOS and BSD.
+     *
+     * @return A size in bytes.
+     */
+    private static long getMaxCommandLength() {
+        return isWindows() ? 32767L : 131072L;
+    }
+
+    /**
+     * Check if processes are run on Windows.
+     *
+     * @return True on Windows, false on POSIX systems.
+     */
+    private static boolean isWindows() {
+        return System.getProperty("os.name", "").toLowerCase(Locale.ENGLISH).startsWith("windows");
+    }
+
+    /**
+     * Run shellcheck on a batch, analysing it again in two halves if it times out.
+     *
+     * A single file timing out is skipped: it has no entry in the returned report.
+     *
+     * @param interpreter Dialect given to shellcheck.
+     * @param files Absolute paths of the files to analyse.
+     * @param output File where the raw output is copied, null to disable it.
+     * @return The report of this batch.
+     * @throws IOException If a process could not be run, failed or gave a malformed output.
+     * @throws InterruptedException If the worker is interrupted while waiting a process.
+     * @throws TimeoutException If the total timeout is reached.
+     */
+    private IssueBatch analyse(final String interpreter, final List<String> files, final File output)
+            throws IOException, InterruptedException, TimeoutException {
+        IssueBatch report;
+        try {
+            report = run(interpreter, files, output);
+        } catch (TimeoutException e) {
+            if (isExpired()) {
+                throw e;
+            }
+            report = newBatch();
+            if (files.size() > 1) {
+                LOGGER.warn(String.format("%s, its %d files are analysed again in two batches.", e.getMessage(), files.size()));
+                for (final List<String> half : shard(files, 2)) {
+                    report.addAll(analyse(interpreter, half, null));
+                }
+            } else {
+                LOGGER.warn(String.format("%s, file '%s' is not analysed.", e.getMessage(), files.get(0)));
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Run shellcheck on a batch and parse its checkstyle or json1 output.
+     *
+     * Standard error is drained and standard output is parsed by other threads,
+     * so the process never blocks on a full pipe and a killed process never
+     * blocks the worker. The returned report
+     * contains an entry for each file of the batch, even without issue.
+     *
+     * @param interpreter Dialect given to shellcheck.
+     * @param files Absolute paths of the files to analyse.
+     * @param output File where the raw output is copied, null to disable it.
+     * @return The report of this batch.
+     * @throws IOException If the process could not be run, failed or gave a malformed output.
+     * @throws InterruptedException If the worker is interrupted while waiting the process.
+     * @throws TimeoutException If the process was killed by the watchdog or the total timeout is reached.
+     */
+    private IssueBatch run(final String interpreter, final List<String> files, final File output)
+            throws IOException, InterruptedException, TimeoutException {
+        final long timeout = getTimeout();
+        final List<String> command = command(interpreter, files);
+        LOGGER.debug("command : " + String.join(" ", command));
+
+        final long started = statistics.start();
+        final Process shellcheck = runner.start(command);
+        final long spawned = trace.now();
+        statistics.add(SensorStatistics.Counter.BATCHES, 1);
+        final StringBuilder errors = new StringBuilder();
+        final Thread stdError = drain(shellcheck.getErrorStream(), errors);
+        final IssueBatch report = newBatch();
+        final FirstReadInputStream stdOutput = new FirstReadInputStream(statistics.count(shellcheck.getInputStream()));
+        final CompletableFuture<IssueBatch> parsing = parse(stdOutput, output, report);
+        final AtomicBoolean settled = new AtomicBoolean(false);
+        final ScheduledFuture<?> kill = watch(shellcheck, timeout, settled, parsing);
+        IOException failure = null;
+        boolean complete = false;
+        try {
+            parsing.get();
+            complete = true;
+        } catch (ExecutionException e) {
+            // Output is incomplete or not checkstyle formatted, the exit code tells why.
+            failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            cancel(kill, settled);
+            shellcheck.destroyForcibly();
+            throw e;
+        }
+        // A kill firing once the whole output is parsed does not discard it.
+        final boolean fired = !cancel(kill, settled);
+        final boolean timedOut = fired && !complete;
+        if (!fired) {
+            stdError.join();
+        }
+        final long parsed = trace.now();
+        final int success = shellcheck.waitFor();
+        statistics.stop(SensorStatistics.Phase.EXECUTION, started);
+        if (trace.isEnabled()) {
+            // Statistics and trace share the same clock.
+            final long exited = trace.now();
+            final long firstRead = stdOutput.firstRead != 0 ? stdOutput.firstRead : parsed;
+            trace.span("batch", started, exited, "interpreter", interpreter, "files", String.valueOf(files.size()),
+                    "first file", files.get(0), "exit code", String.valueOf(success), "killed", String.valueOf(fired));
+            trace.span("spawn", started, spawned);
+            trace.span("first output", spawned, firstRead);
+            trace.span("parse", firstRead, parsed, "issues", String.valueOf(report.size()));
+            trace.span("exit", parsed, exited);
+        }
+        if (timedOut) {
+            throw new TimeoutException(String.format("Shellcheck did not end within %d ms", timeout));
+        } else if (!fired && success != 0 && success != 1) {
+            LOGGER.debug(errors.toString());
+            throw new IOException("Shellcheck auto-launch analysis failed with exit code " + success);
+        } else if (failure != null) {
+            throw failure;
+        }
+        return complete(report, files);
+    }
+
+    /**
+     * Parse the checkstyle or json1 output of a process in a dedicated thread.
+     *
+     * @param stdOutput Standard output of the process.
+     * @param output File where the raw output is copied, null to disable it.
+     * @param report Batch receiving the issues.
+     * @return The given batch, once the output is parsed.
+     */
+    private CompletableFuture<IssueBatch> parse(final InputStream stdOutput, final File output, final IssueBatch report) {
+        return read("shellcheck-output", () -> {
+            try (InputStream result = output == null ? stdOutput :
+                    new CopyInputStream(stdOutput, new FileOutputStream(output))) {
+                final long parsed = statistics.start();
+                if (ShellcheckPluginProperties.FORMAT_JSON1.equals(format)) {
+                    Json1Reader.read(result, report);
+                } else {
+                    CheckstyleReader.read(result, report);
+                }
+                statistics.stop(SensorStatistics.Phase.PARSING, parsed);
+            }
+            return report;
+        });
+    }
+
+    /**
+     * Read the output of a process in a dedicated thread.
+     *
+     * @param name Name of the thread.
+     * @param reading Task reading the output.
+     * @param <T> Type of the read result.
+     * @return The result of the task, once the output is read.
+     */
+    private static <T> CompletableFuture<T> read(final String name, final Callable<T> reading) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Thread reader = new Thread(() -> {
+            try {
+                result.complete(reading.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, name);
+        reader.setDaemon(true);
+        reader.start();
+        return result;
+    }
+
+    /**
+     * Schedule the kill of a process running for too long.
+     *
+     * Children of the executable, such as those of a wrapper script, are not
+     * killed and may keep the pipes open: the waited output is failed as soon
+     * as the process is killed so that its caller stops waiting for it.
+     *
+     * @param process Process to watch.
+     * @param timeout Time given to the process in milliseconds, 0 for no limit.
+     * @param settled Flag set by the first of the kill and of {@link #cancel(ScheduledFuture, AtomicBoolean)}.
+     * @param waited Output waited by the caller, failed when the process is killed.
+     * @return The kill to cancel once the process ended, null without limit.
+     */
+    private ScheduledFuture<?> watch(final Process process, final long timeout, final AtomicBoolean settled,
+                                     final CompletableFuture<?> waited) {
+        return timeout == 0 ? null : watchdog.schedule(() -> {
+            if (settled.compareAndSet(false, true)) {
+                process.destroyForcibly();
+                close(process);
+                waited.completeExceptionally(new TimeoutException("Shellcheck was killed"));
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancel the kill of a process.
+     *
+     * A running kill is not reported by {@link ScheduledFuture#cancel(boolean)},
+     * the flag shared with the kill tells which one came first.
+     *
+     * @param kill Kill scheduled by {@link #watch(Process, long, AtomicBoolean, CompletableFuture)}, possibly null.
+     * @param settled Flag shared with the kill.
+     * @return True if the process is not killed, false if the kill already started.
+     */
+    private static boolean cancel(final ScheduledFuture<?> kill, final AtomicBoolean settled) {
+        if (kill != null) {
+            kill.cancel(false);
+        }
+        return settled.compareAndSet(false, true);
+    }
+
+    /**
+     * Close the streams of a killed process so that its pipes are released.
+     *
+     * @param process Killed process.
+     */
+    private static void close(final Process process) {
+        for (final Closeable stream : Arrays.asList(process.getInputStream(), process.getErrorStream(),
+                process.getOutputStream())) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                LOGGER.debug(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Compute the time given to a new process.
+     *
+     * @return A duration in milliseconds, 0 for no limit.
+     * @throws TimeoutException If the total timeout is reached.
+     */
+    private long getTimeout() throws TimeoutException {
+        long timeout = batchTimeout;
+        if (deadline != null) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("Shellcheck auto-launch total timeout reached, batch is not analysed");
+            }
+            // Rounded up so that the total timeout is reached when the process is killed.
+            final long millis = TimeUnit.NANOSECONDS.toMillis(remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+            timeout = timeout == 0 ? millis : Math.min(timeout, millis);
+        }
+        return timeout;
+    }
+
+    /**
+     * Check if the total timeout is reached.
+     *
+     * @return True if no process can be run anymore.
+     */
+    private boolean isExpired() {
+        return deadline != null && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Add an empty entry for each analysed file missing in a report.
+     *
+     * @param report Report produced by shellcheck.
+     * @param files Absolute paths of the analysed files.
+     * @return The given report.
+     */
+    static IssueBatch complete(final IssueBatch report, final List<String> files) {
+        for(final String path : files) {
+            report.file(path);
+        }
+        return report;
+    }
+
+    /**
+     * Create an empty batch sharing the messages of the analysis.
+     *
+     * @return A new batch.
+     */
+    public IssueBatch newBatch() {
+        return new IssueBatch(messages);
+    }
+
+    /**
+     * Retrieve the version of the shellcheck executable.
+     *
+     * Standard error is drained and the process is killed like the analyses if it runs for too long.
+     *
+     * @return The version printed by shellcheck.
+     * @throws IOException If shellcheck cannot be run, times out or its version is not printed.
+     * @throws InterruptedException If the current thread is interrupted while waiting the process.
+     */
+    public String version() throws IOException, InterruptedException {
+        final long timeout;
+        try {
+            timeout = getTimeout();
+        } catch (TimeoutException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        final Process shellcheck = runner.start(Arrays.asList(executable, "--version"));
+        drain(shellcheck.getErrorStream(), new StringBuilder());
+        final CompletableFuture<String> reading = read("shellcheck-version", () -> {
+            final String prefix = "version:";
+            String printed = null;
+            String line;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(shellcheck.getInputStream()))) {
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(prefix)) {
+                        printed = line.substring(prefix.length()).trim();
+                    }
+                }
+            }
+            return printed;
+        });
+        final AtomicBoolean settled = new AtomicBoolean(false);
+        final ScheduledFuture<?> kill = watch(shellcheck, timeout, settled, reading);
+        final String version;
+        try {
+            version = reading.get();
+            shellcheck.waitFor();
+        } catch (ExecutionException e) {
+            throw !cancel(kill, settled) ? new IOException(String.format("Shellcheck version was not printed within %d ms.", timeout))
+                    : new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            shellcheck.destroyForcibly();
+            throw e;
+        } finally {
+            cancel(kill, settled);
+        }
+        if (version == null) {
+            throw new IOException("Shellcheck version cannot be retrieved.");
+        }
+        return version;
+    }
+
+    /**
+     * Read a stream until its end in a dedicated thread.
+     *
+     * @param stream Stream to read.
+     * @param content Buffer receiving the read lines.
+     * @return The started thread.
+     */
+    private static Thread drain(final InputStream stream, final StringBuilder content) {
+        final Thread thread = new Thread(() -> {
+            String line;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+                while ((line = reader.readLine()) != null) {
+                    content.append(line).append(System.lineSeparator());
+                }
+            } catch (IOException e) {
+                LOGGER.debug(e.getMessage(), e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Input stream remembering when its first byte was read.
+     */
+    private static class FirstReadInputStream extends FilterInputStream {
+
+        /**
+         * Timestamp of the first read byte in nanoseconds, 0 before.
+         */
+        private volatile long firstRead = 0;
+
+        /**
+         * Create a stream.
+         *
+         * @param in Stream to read.
+         */
+        FirstReadInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read != -1 && firstRead == 0) {
+                firstRead = System.nanoTime();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0 && firstRead == 0) {
+                firstRead = System.nanoTime();
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Input stream copying all read bytes into an output stream.
+     */
+    private static class CopyInputStream extends FilterInputStream {
+
+        /**
+         * Stream receiving the read bytes.
+         */
+        private final OutputStream copy;
+
+        /**
+         * Create a copying stream.
+         *
+         * @param in Stream to read.
+         * @param copy Stream receiving the read bytes, closed with this stream.
+         */
+        CopyInputStream(final InputStream in, final OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read != -1) {
+                copy.write(read);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                copy.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                copy.close();
+            }
+        }
+    }
+
+}
@@ -14,39 +14,29 @@
  * You should have received a copy of the GNU General Public License
  * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
  */
-package fr.cnes.sonar.plugins.shellcheck.model;
+package fr.cnes.sonar.plugins.shellcheck.check;
 
-import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlElement;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.List;
 
 /**
- * Class used to unmarshal shellcheck/checkstyle xml file.
+ * Start shellcheck processes for the auto-launch.
  *
- * It contains an analyzed file.
+ * The default implementation runs the real executable, other implementations
+ * can be given to {@link ShellcheckSensor} to benchmark or test the auto-launch
+ * without shellcheck.
  *
  * @author lequal
  */
-public class CheckstyleFile {
-    @XmlAttribute
-    public String name;
-    @XmlElement (name = "error")
-    public CheckstyleError[] error;
+public interface ShellcheckRunner {
 
     /**
-     * Getter for accessing analyzed files (sources).
-     * @return A list of CheckstyleFile.
+     * Start a shellcheck process.
+     *
+     * @param command Executable followed by its arguments.
+     * @return The started process, its output is read and its exit code checked by the caller.
+     * @throws IOException If the process cannot be started.
      */
-    public List<CheckstyleError> getChecktyleErrors() {
-        // Retrieve files
-        List<CheckstyleError> errors;
-        if(error !=null) {
-            errors = Arrays.asList(error);
-        } else {
-            errors = new ArrayList<>();
-        }
-        return errors;
-    }
+    Process start(List<String> command) throws IOException;
+
 }
@@ -17,38 +17,42 @@
 package fr.cnes.sonar.plugins.shellcheck.check;
 
 import fr.cnes.sonar.plugins.shellcheck.languages.*;
-import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleError;
-import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleFile;
-import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleReport;
+import fr.cnes.sonar.plugins.shellcheck.measures.ShellcheckMeasureComputer;
+import fr.cnes.sonar.plugins.shellcheck.measures.ShellcheckMetrics;
+import fr.cnes.sonar.plugins.shellcheck.model.IssueBatch;
+import fr.cnes.sonar.plugins.shellcheck.model.IssueHandler;
 import fr.cnes.sonar.plugins.shellcheck.rules.ShellcheckRulesDefinition;
 import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
-import fr.cnes.sonar.plugins.shellcheck.model.XmlHandler;
 
 import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.config.Configuration;
+import org.sonar.api.measures.Metric;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
-import javax.xml.bind.JAXBException;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 /**
  * Executed during sonar-scanner call.
  * Execute shellcheck analysis if autolaunch enabled.
- * Import Shellcheck reports (checkstyle formatted) into SonarQube.
+ * Import Shellcheck reports (checkstyle or json1 formatted) into SonarQube.
  *
  * @author lequal
  */
@@ -59,6 +63,47 @@ public class ShellcheckSensor implements Sensor {
      */
     private static final Logger LOGGER = Loggers.get(ShellcheckSensor.class);
 
+    /**
+     * Extension of gzip compressed reports.
+     */
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * Number of files whose line indexes are kept while saving issues.
+     */
+    private static final int LINE_INDEXES = 64;
+
+    /**
+     * Name of the statistics file written in the working directory.
+     */
+    static final String STATISTICS_FILE = "shellcheck-statistics.json";
+
+    /**
+     * Name of the trace file written in the working directory.
+     */
+    static final String TRACE_FILE = "shellcheck-trace.json";
+
+    /**
+     * Starter of shellcheck processes used by the auto-launch.
+     */
+    private final ShellcheckRunner runner;
+
+    /**
+     * Create a sensor running the shellcheck executable.
+     */
+    public ShellcheckSensor() {
+        this(new ProcessShellcheckRunner());
+    }
+
+    /**
+     * Create a sensor starting shellcheck with the given runner.
+     *
+     * @param runner Starter of shellcheck processes used by the auto-launch.
+     */
+    public ShellcheckSensor(final ShellcheckRunner runner) {
+        this.runner = runner;
+    }
+
     /**
      * Give information about this sensor.
      *
@@ -92,210 +137,452 @@ public class ShellcheckSensor implements Sensor {
         final FileSystem fileSystem = sensorContext.fileSystem();
         // Represent the configuration used for the analysis.
         final Configuration config = sensorContext.config();
-        // Represent the active rules used for the analysis.
-        final ActiveRules activeRules = sensorContext.activeRules();
+        // Active rules are indexed once for all issues.
+        final ActiveRuleIndex rules = new ActiveRuleIndex(sensorContext.activeRules());
+        // Issues which cannot be saved are summarized at the end.
+        final IgnoredIssues ignored = new IgnoredIssues();
+        // Durations and counters of the phases are summarized at the end.
+        final SensorStatistics statistics = new SensorStatistics();
+        // Issues of all reports and of the auto-launch are saved by the same importer.
+        final ReportImporter importer = new ReportImporter(sensorContext, rules, ignored,
+                new PathResolver(fileSystem), statistics);
+        // Shell files of the project, their number and size are part of the measures.
+        final List<InputFile> shellFiles = discover(fileSystem, statistics);
+        // Scripts analysed by the auto-launch, by interpreter.
+        Map<String, Integer> scripts = Collections.emptyMap();
+        // Measures of a partial analysis would not describe the project.
+        boolean changedOnly = false;
         // run sellcheck execution
         boolean autolaunch = config.getBoolean(ShellcheckPluginProperties.AUTOLAUNCH_PROP_KEY).orElse(Boolean.getBoolean(ShellcheckPluginProperties.AUTOLAUNCH_PROP_DEFAULT));
         if(autolaunch) {
             LOGGER.info("Shellcheck auto-launch enabled.");
-            for(final String interpreter : Arrays.asList(ShellLanguage.INTERPRETERS))
-                analyse(sensorContext, interpreter);
+            final TraceRecorder trace = new TraceRecorder(config.getBoolean(ShellcheckPluginProperties.TRACE_PROP_KEY)
+                    .orElse(Boolean.parseBoolean(ShellcheckPluginProperties.TRACE_PROP_DEFAULT)));
+            changedOnly = ChangedFiles.isEnabled(config);
+            scripts = autoLaunch(sensorContext, importer, shellFiles, changedOnly, trace);
+            if(trace.isEnabled()) {
+                final File traceFile = new File(fileSystem.workDir(), TRACE_FILE);
+                try {
+                    trace.write(traceFile);
+                    LOGGER.info("Shellcheck trace written to " + traceFile);
+                } catch (IOException e) {
+                    LOGGER.warn(String.format("Shellcheck trace could not be written to '%s'.", traceFile), e);
+                }
+            }
         }else{
             LOGGER.info("Shellcheck auto-launch disabled.");
         }
 
         // Report files found in file system and corresponding to SQ property.
-        final List<String> reportFiles = getReportFiles(config, fileSystem, autolaunch);
+        final long discovery = statistics.start();
+        final List<String> reportFiles = getReportFiles(config, fileSystem);
+        statistics.stop(SensorStatistics.Phase.DISCOVERY, discovery);
 
-        // If exists, unmarshal each xml result file.
+        // If exists, parse result files concurrently, issues being saved by this thread in reports order.
+        final List<File> reports = new ArrayList<>();
         for(final String reportPath : reportFiles) {
+            reports.add(new File(reportPath));
+        }
+        try {
+            new ReportLoader(ShellcheckExecutor.getThreads(config), statistics).load(reports, importer,
+                    (report, e) -> {
+                        LOGGER.error(e.getMessage(), e);
+                        sensorContext.newAnalysisError().message(e.getMessage()).save();
+                    });
+        } catch (InterruptedException e) {
+            LOGGER.error(e.getMessage(), e);
+            sensorContext.newAnalysisError().message(e.getMessage()).save();
+            Thread.currentThread().interrupt();
+        }
+
+        ignored.logSummary();
+        statistics.logSummary();
+        if(changedOnly) {
+            LOGGER.info("Shellcheck measures are not saved as only changed files are analysed.");
+        } else {
+            saveMeasures(sensorContext, statistics, autolaunch, scripts);
+        }
+        if(config.getBoolean(ShellcheckPluginProperties.STATISTICS_PROP_KEY)
+                .orElse(Boolean.parseBoolean(ShellcheckPluginProperties.STATISTICS_PROP_DEFAULT))) {
+            final File statisticsFile = new File(fileSystem.workDir(), STATISTICS_FILE);
             try {
-                // Unmarshall the xml.
-                final File file = new File(reportPath);
-                final CheckstyleReport checkstyleReport = (CheckstyleReport) XmlHandler.unmarshal(file, CheckstyleReport.class);
-                // Retrieve file in a SonarQube format.
-                final Map<String, InputFile> scannedFiles = getScannedFiles(fileSystem, checkstyleReport);
-
-                // Handles issues.
-                for (final CheckstyleFile checkstyleFile : checkstyleReport.getCheckstyleFiles()) {
-                    for(final CheckstyleError checkstyleError : checkstyleFile.getChecktyleErrors()) {
-
-                        if (isRuleActive(activeRules, checkstyleError.source)) { // manage active rules
-                            saveIssue(sensorContext, scannedFiles, checkstyleError, checkstyleFile);
-                        } else { // log ignored data
-                            LOGGER.info(String.format(
-                                    "An issue for rule '%s' was detected by Shellcheck but this rule is deactivated in current analysis.",
-                                    checkstyleError.source));
-                        }
+                statistics.write(statisticsFile);
+                LOGGER.info("Shellcheck statistics written to " + statisticsFile);
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Shellcheck statistics could not be written to '%s'.", statisticsFile), e);
+            }
+        }
+    }
+
+    /**
+     * Save the measures of the analysis on the module.
+     *
+     * Parent modules receive their sums from {@link ShellcheckMeasureComputer}.
+     *
+     * @param sensorContext Provide SonarQube services to register results.
+     * @param statistics Statistics of the analysis.
+     * @param autolaunch True if shellcheck was run by the sensor.
+     * @param scripts Number of scripts analysed by the auto-launch, by interpreter.
+     */
+    private static void saveMeasures(final SensorContext sensorContext, final SensorStatistics statistics,
+                                     final boolean autolaunch, final Map<String, Integer> scripts) {
+        // Without auto-launch no process ran, a zero would be mistaken for a fast analysis.
+        if(autolaunch) {
+            sensorContext.<Long>newMeasure().on(sensorContext.module()).forMetric(ShellcheckMetrics.EXECUTION_TIME)
+                    .withValue(statistics.getMillis(SensorStatistics.Phase.EXECUTION)).save();
+        }
+        final long diagnostics = statistics.get(SensorStatistics.Counter.PROJECT_DIAGNOSTICS);
+        sensorContext.<Integer>newMeasure().on(sensorContext.module()).forMetric(ShellcheckMetrics.DIAGNOSTICS)
+                .withValue((int) diagnostics).save();
+        final long lines = statistics.get(SensorStatistics.Counter.LINES);
+        sensorContext.<Integer>newMeasure().on(sensorContext.module()).forMetric(ShellcheckMetrics.LINES)
+                .withValue((int) lines).save();
+        // Density is meaningless without shell lines.
+        if(lines > 0) {
+            sensorContext.<Double>newMeasure().on(sensorContext.module()).forMetric(ShellcheckMetrics.DIAGNOSTICS_DENSITY)
+                    .withValue(diagnostics * 1000.0 / lines).save();
+        }
+        for(final Map.Entry<String, Integer> interpreter : scripts.entrySet()) {
+            final Metric<Integer> metric = ShellcheckMetrics.scripts(interpreter.getKey());
+            if(metric != null) {
+                sensorContext.<Integer>newMeasure().on(sensorContext.module()).forMetric(metric)
+                        .withValue(interpreter.getValue()).save();
+            }
+        }
+    }
+
+    /**
+     * Run shellcheck on project files and save its issues.
+     *
+     * @param sensorContext Provide SonarQube services to register results.
+     * @param importer Importer saving the issues.
+     * @param shellFiles Shell files of the project.
+     * @param changedOnly True if only the files changed by the pull request are analysed.
+     * @param trace Timeline receiving the spans of the shellcheck processes.
+     * @return Number of analysed scripts, by interpreter.
+     */
+    private Map<String, Integer> autoLaunch(final SensorContext sensorContext, final ReportImporter importer,
+                                            final List<InputFile> shellFiles, final boolean changedOnly,
+                                            final TraceRecorder trace) {
+        final Map<String, Integer> scripts = new LinkedHashMap<>();
+        final Configuration config = sensorContext.config();
+        LOGGER.info("Running shellcheck with " + ShellcheckExecutor.getThreads(config) + " thread(s).");
+        final ShellcheckExecutor executor = new ShellcheckExecutor(config, sensorContext.fileSystem().workDir(), runner,
+                importer.statistics, trace);
+        // Results of unchanged files from previous analyses.
+        final ResultCache cache = getCache(sensorContext, executor);
+        try {
+            // Files of the project sorted by interpreter in a single pass.
+            Map<String, List<InputFile>> projectFiles = classify(sensorContext, shellFiles, importer.statistics);
+            // Only changed files are analysed in incremental mode.
+            if(changedOnly) {
+                LOGGER.info("Shellcheck incremental mode enabled, only changed files are analysed.");
+                projectFiles = ChangedFiles.filter(projectFiles,
+                        ShellcheckExecutor.isFollowingSources(config), sensorContext.fileSystem().baseDir().toPath());
+            }
+            // Submit all interpreters before waiting for any of them.
+            final List<Future<IssueBatch>> results = new ArrayList<>();
+            for(final Map.Entry<String, List<InputFile>> files : projectFiles.entrySet()) {
+                scripts.put(files.getKey(), files.getValue().size());
+                results.addAll(analyse(files.getKey(), files.getValue(), executor, cache, importer.resolver));
+            }
+            // Issues of a batch are saved as soon as it is parsed, in submission order.
+            int expired = 0;
+            for(final Future<IssueBatch> result : results) {
+                final IssueBatch report;
+                try {
+                    report = waitResult(sensorContext, result);
+                } catch (TimeoutException e) {
+                    // All remaining batches fail the same way, once is enough.
+                    if(expired++ == 0) {
+                        LOGGER.warn(e.getMessage());
                     }
+                    continue;
                 }
-            } catch (JAXBException e) {
-                LOGGER.error(e.getMessage(), e);
-                sensorContext.newAnalysisError().message(e.getMessage()).save();
+                if(report != null) {
+                    report.replay(importer);
+                    if(cache != null) {
+                        cache.put(report);
+                    }
+                }
+            }
+            if(expired > 0) {
+                LOGGER.warn(String.format("Shellcheck auto-launch total timeout reached, %d batch(es) not analysed.",
+                        expired));
+            }
+        } finally {
+            executor.shutdown();
+            if(cache != null) {
+                cache.logStatistics();
+                evict(config, cache);
             }
         }
-
+        return scripts;
     }
 
     /**
-     * Running an analysis (auto-launch) of files in the directory analyzed and generating results files.
-     * @param sensorContext
-     * @param interpreter
+     * Open the cache of shellcheck results if it is enabled.
+     *
+     * @param sensorContext Provide SonarQube services to register results.
+     * @param executor Executor used to retrieve shellcheck version.
+     * @return The cache or null if it is disabled or shellcheck version is unknown.
      */
-    private void analyse(SensorContext sensorContext, String interpreter) {
+    private ResultCache getCache(final SensorContext sensorContext, final ShellcheckExecutor executor) {
         final Configuration config = sensorContext.config();
-        LOGGER.info("Running shellcheck for "+ interpreter);
-        //Filtering files
-        List<String> projectFiles = new LinkedList<>(Arrays.asList(sensorContext.fileSystem().baseDir().list()));
-        for(Iterator<String> iterator = projectFiles.iterator(); iterator.hasNext();){
-            final String filePath = iterator.next();
-            final String absolutePath = Paths.get(sensorContext.fileSystem().baseDir().getPath(),filePath).toAbsolutePath().toString();
-            String fileInterpreter = "";
-            LOGGER.debug("Defining interpreter for "+filePath );
+        ResultCache cache = null;
+        final boolean enabled = config.getBoolean(ShellcheckPluginProperties.CACHE_PROP_KEY)
+                .orElse(Boolean.parseBoolean(ShellcheckPluginProperties.CACHE_PROP_DEFAULT));
+        if(enabled && ShellcheckExecutor.isFollowingSources(config)) {
+            // Results would also depend on the content of sourced files.
+            LOGGER.info("Shellcheck cache disabled because external sources are followed.");
+        } else if(enabled) {
+            // Working directory is used unless a shared directory is given.
+            final File directory = config.get(ShellcheckPluginProperties.CACHE_PATH_PROP_KEY)
+                    .map(File::new)
+                    .orElse(new File(sensorContext.fileSystem().workDir(), "shellcheck-cache"));
+            try {
+                // Reports of both formats do not contain the same positions.
+                cache = new ResultCache(directory, executor.version() + " " + ShellcheckExecutor.getFormat(config),
+                        sensorContext.fileSystem().baseDir());
+                LOGGER.info("Shellcheck cache enabled in " + directory);
+            } catch (InterruptedException e) {
+                LOGGER.warn("Shellcheck cache disabled: " + e.getMessage());
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                LOGGER.warn("Shellcheck cache disabled: " + e.getMessage());
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Remove old entries of the cache according to the configuration.
+     *
+     * @param config Configuration of the analysis where properties are put.
+     * @param cache Cache to clean.
+     */
+    private void evict(final Configuration config, final ResultCache cache) {
+        final long megabyte = 1024L * 1024L;
+        final long day = 24L * 3600L * 1000L;
+        final long maxSize = config.getLong(ShellcheckPluginProperties.CACHE_SIZE_PROP_KEY)
+                .orElse(Long.parseLong(ShellcheckPluginProperties.CACHE_SIZE_PROP_DEFAULT));
+        final long maxAge = config.getLong(ShellcheckPluginProperties.CACHE_AGE_PROP_KEY)
+                .orElse(Long.parseLong(ShellcheckPluginProperties.CACHE_AGE_PROP_DEFAULT));
+        cache.evict(maxSize * megabyte, maxAge * day);
+    }
 
+    /**
+     * List the main shell files indexed by SonarQube.
+     *
+     * Files come from the scanner index, so exclusions and sub-directories
+     * are already handled.
+     *
+     * @param fileSystem File system of the analysis.
+     * @param statistics Statistics receiving the duration of the listing and the size of the files.
+     * @return Main shell files.
+     */
+    private static List<InputFile> discover(final FileSystem fileSystem, final SensorStatistics statistics) {
+        final long discovery = statistics.start();
+        final FilePredicate predicate = fileSystem.predicates().and(
+                fileSystem.predicates().hasLanguage(ShellLanguage.KEY),
+                fileSystem.predicates().hasType(InputFile.Type.MAIN));
+        final List<InputFile> result = new ArrayList<>();
+        long lines = 0;
+        for(final InputFile inputFile : fileSystem.inputFiles(predicate)) {
+            result.add(inputFile);
+            lines += inputFile.lines();
+        }
+        statistics.stop(SensorStatistics.Phase.DISCOVERY, discovery);
+        statistics.add(SensorStatistics.Counter.FILES, result.size());
+        statistics.add(SensorStatistics.Counter.LINES, lines);
+        return result;
+    }
+
+    /**
+     * Sort shell files by interpreter.
+     *
+     * Each file is opened once to read its shebang.
+     *
+     * @param sensorContext Provide SonarQube services to register results.
+     * @param inputFiles Shell files to sort.
+     * @param statistics Statistics receiving the durations of reading the files.
+     * @return Files for each known interpreter, in {@link ShellLanguage#INTERPRETERS} order.
+     */
+    private Map<String, List<InputFile>> classify(final SensorContext sensorContext, final List<InputFile> inputFiles,
+                                                  final SensorStatistics statistics) {
+        // Prepare a bucket for each interpreter.
+        final Map<String, List<InputFile>> result = new LinkedHashMap<>();
+        for(final String interpreter : ShellLanguage.INTERPRETERS) {
+            result.put(interpreter, new ArrayList<>());
+        }
+        for(final InputFile inputFile : inputFiles) {
+            LOGGER.debug("Defining interpreter for "+inputFile);
+            final long classification = statistics.start();
             try {
-                if(new File(absolutePath).isFile()) {
-                    BufferedReader bfr = new BufferedReader(new FileReader(absolutePath));
-                    final String shebang = "#!/bin/";
-                    boolean stop = false;
-                    //Reading file beginning to detect shebang
-                    while (bfr.ready() && !stop) {
-                        String lineContent = bfr.readLine();
-                        LOGGER.debug("Line being read is : " + lineContent);
-                        if (!lineContent.isEmpty()) {
-                            stop = true;
-                            if (lineContent.startsWith(shebang)) {
-                                fileInterpreter = lineContent.replace(shebang, "");
-                                LOGGER.debug("interpreter found in file : " + fileInterpreter);
-
-                            }
-                        }
-                    }
-                    bfr.close();
+                final List<InputFile> bucket = result.get(readInterpreter(inputFile));
+                if(bucket != null) {
+                    bucket.add(inputFile);
                 }
             } catch (IOException e) {
                 LOGGER.error(e.getMessage(), e);
                 sensorContext.newAnalysisError().message(e.getMessage()).save();
             }
-            if(fileInterpreter == null || !fileInterpreter.equals(interpreter)){
-                iterator.remove();
+            statistics.stop(SensorStatistics.Phase.CLASSIFICATION, classification);
+        }
+        return result;
+    }
+
+    /**
+     * Read the interpreter of a file.
+     *
+     * The shebang is used if the first non empty line is one,
+     * otherwise the extension of the file is used.
+     *
+     * @param inputFile File to read.
+     * @return The interpreter or an empty string if it cannot be determined.
+     * @throws IOException If the file cannot be read.
+     */
+    static String readInterpreter(final InputFile inputFile) throws IOException {
+        final String shebang = "#!/bin/";
+        final String fileName = inputFile.filename();
+        // Extension used if no shebang is found.
+        String fileInterpreter = fileName.substring(fileName.lastIndexOf('.') + 1);
+        try (BufferedReader bfr = new BufferedReader(new InputStreamReader(inputFile.inputStream(), inputFile.charset()))) {
+            String lineContent = bfr.readLine();
+            //Reading file beginning to detect shebang
+            while (lineContent != null && lineContent.isEmpty()) {
+                lineContent = bfr.readLine();
+            }
+            if (lineContent != null && lineContent.startsWith(shebang)) {
+                // Interpreter options (e.g. "#!/bin/sh -e") are ignored.
+                fileInterpreter = lineContent.substring(shebang.length()).trim().split("\\s+")[0];
+                LOGGER.debug("interpreter found in file : " + fileInterpreter);
             }
         }
-        if(!projectFiles.isEmpty()) {
-            final String executable = "shellcheck";
-            final String outputFile = ShellcheckPluginProperties.REPORT_REGEX_DEFAULT.replace(".*",interpreter);
-            final String outputPath = Paths.get(sensorContext.fileSystem().baseDir().toString(), outputFile).toString();
-            final String outputOption = "-f checkstyle";
-            final String interpreterOption = "--shell=" + interpreter;
-
-            projectFiles.replaceAll(filePath -> Paths.get(sensorContext.fileSystem().baseDir().toString(), filePath).toAbsolutePath().toString());
-
-            final String command = String.join(" ", executable, String.join(" ", projectFiles), interpreterOption, outputOption);
-            LOGGER.info("running Shellcheck and generating results to " + outputPath);
-            LOGGER.debug("command : " + command);
-            try {
-                final Process shellcheck = Runtime.getRuntime().exec(command);
-                int success = shellcheck.waitFor();
-                if (success == 0 || success == 1) {
-                    LOGGER.info("Auto-launch successfully executed shellcheck");
-                    BufferedReader result = new BufferedReader(new InputStreamReader(shellcheck.getInputStream()));
-                    BufferedWriter writer = new BufferedWriter(new FileWriter(new File(outputPath)));
-                    String line = "";
-                    while ((line = result.readLine()) != null) {
-                        writer.write(line);
-                        writer.newLine();
-                        LOGGER.debug(line);
-                    }
-                    writer.close();
-                    result.close();
-                } else {
-                    String line = "";
-                    BufferedReader stdError = new BufferedReader(new InputStreamReader(shellcheck.getErrorStream()));
-                    while ((line = stdError.readLine()) != null)
-                        LOGGER.debug(line);
-                    LOGGER.error("Shellcheck auto-launch analysis failed with exit code " + shellcheck.exitValue());
-                    stdError.close();
+        return fileInterpreter;
+    }
+
+    /**
+     * Running an analysis (auto-launch) of files using the same interpreter.
+     *
+     * Files found in the cache are not given to shellcheck, their results
+     * are returned as an already completed report.
+     *
+     * @param interpreter Interpreter of the files to analyse.
+     * @param inputFiles Files to analyse.
+     * @param executor Executor running shellcheck processes.
+     * @param cache Cache of previous results, null if disabled.
+     * @param resolver Resolver learning the names given to shellcheck.
+     * @return Pending reports of the submitted batches.
+     */
+    private List<Future<IssueBatch>> analyse(final String interpreter, final List<InputFile> inputFiles,
+                                             final ShellcheckExecutor executor, final ResultCache cache,
+                                             final PathResolver resolver) {
+        final List<Future<IssueBatch>> results = new ArrayList<>();
+        if(!inputFiles.isEmpty()) {
+            LOGGER.info("Running shellcheck for "+ interpreter);
+            final List<String> projectFiles = new ArrayList<>();
+            final IssueBatch cachedReport = executor.newBatch();
+            for(final InputFile inputFile : inputFiles) {
+                final String path = Paths.get(inputFile.uri()).toAbsolutePath().toString();
+                // Shellcheck reports the file with this name, no need to look it up later.
+                resolver.register(path, inputFile);
+                boolean cached = false;
+                try {
+                    cached = cache != null && cache.get(interpreter, inputFile, path, cachedReport);
+                } catch (IOException e) {
+                    LOGGER.warn(e.getMessage(), e);
                 }
-            } catch (InterruptedException | IOException e) {
-                LOGGER.error(e.getMessage(), e);
-                sensorContext.newAnalysisError().message(e.getMessage()).save();
+                if(!cached) {
+                    projectFiles.add(path);
+                }
+            }
+            if(!cachedReport.getFiles().isEmpty()) {
+                results.add(CompletableFuture.completedFuture(cachedReport));
             }
+            results.addAll(executor.submit(interpreter, projectFiles));
         }else{
             LOGGER.info("No file using "+interpreter+" interpreter found in project.");
         }
-
-
+        return results;
     }
 
-
-
+    /**
+     * Wait for the report of a batch.
+     *
+     * @param sensorContext Provide SonarQube services to register results.
+     * @param result Pending report of the batch.
+     * @return The report or null if the batch failed.
+     * @throws TimeoutException If the batch was not analysed before the total timeout.
+     */
+    private IssueBatch waitResult(final SensorContext sensorContext, final Future<IssueBatch> result)
+            throws TimeoutException {
+        IssueBatch report = null;
+        try {
+            report = result.get();
+        } catch (InterruptedException e) {
+            LOGGER.error(e.getMessage(), e);
+            sensorContext.newAnalysisError().message(e.getMessage()).save();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) e.getCause();
+            }
+            LOGGER.error(e.getMessage(), e);
+            sensorContext.newAnalysisError().message(e.getMessage()).save();
+        }
+        return report;
+    }
 
     /**
      * This method save an issue into the SonarQube service.
      *
+     * The issue is located on its range when it is valid according to the lines of the file,
+     * on its whole line otherwise.
+     *
      * @param context A SensorContext to reach SonarQube services.
-     * @param files Map containing files in SQ format.
-     * @param issue A AnalysisRule with the convenient format for Shellcheck.
+     * @param inputFile File containing the issue.
+     * @param lines Index of the lines of the file, null if the file cannot be read.
+     * @param ruleKey Key of the rule raising the issue.
+     * @param message Description of the issue.
+     * @param line First line of the issue, 1-based.
+     * @param column First column of the issue, 1-based, 0 if unknown.
+     * @param endLine Last line of the issue, 0 if unknown.
+     * @param endColumn Column following the issue, 0 if unknown.
      */
-    static void saveIssue(final SensorContext context, final Map<String, InputFile> files, final CheckstyleError issue, final CheckstyleFile file) {
-
-        // Retrieve the file containing the issue.
-        final InputFile inputFile = files.getOrDefault(file.name, null);
-
-        if(inputFile!=null) {
-            // Retrieve the ruleKey if it exists.
-            final RuleKey ruleKey = RuleKey.of(ShellcheckRulesDefinition.getRepositoryKeyForLanguage(inputFile.language()), issue.source);
-
-            // Create a new issue for SonarQube, but it must be saved using NewIssue.save().
-            final NewIssue newIssue = context.newIssue();
-            // Create a new location for this issue.
-            final NewIssueLocation newIssueLocation = newIssue.newLocation();
-
-
-            // Set trivial issue's attributes from AnalysisRule fields.
-            newIssueLocation.on(inputFile);
-            newIssueLocation.at(inputFile.selectLine(Integer.parseInt(issue.line)));
-            newIssueLocation.message(issue.message);
-            newIssue.forRule(ruleKey);
-            newIssue.at(newIssueLocation);
-            newIssue.save();
-        } else {
-            LOGGER.error(String.format(
-                    "Issue '%s' on file '%s' has not been saved because source file was not found.",
-                    issue.source, file.name
-            ));
-        }
-
+    static void saveIssue(final SensorContext context, final InputFile inputFile, final LineIndex lines,
+                          final RuleKey ruleKey, final String message,
+                          final int line, final int column, final int endLine, final int endColumn) {
+        // Create a new issue for SonarQube, but it must be saved using NewIssue.save().
+        final NewIssue newIssue = context.newIssue();
+        // Create a new location for this issue.
+        final NewIssueLocation newIssueLocation = newIssue.newLocation();
+
+
+        // Set trivial issue's attributes from AnalysisRule fields.
+        newIssueLocation.on(inputFile);
+        final TextRange range = lines == null ? null : lines.range(inputFile, line, column, endLine, endColumn);
+        newIssueLocation.at(range != null ? range : inputFile.selectLine(line));
+        newIssueLocation.message(message);
+        newIssue.forRule(ruleKey);
+        newIssue.at(newIssueLocation);
+        newIssue.save();
     }
 
     /**
-     * Construct a map with all found source files.
+     * Index the lines of a file.
      *
-     * @param fileSystem The file system on which the analysis is running.
-     * @param checkstyleReport The checkstyle report
-     * @return A possibly empty Map of InputFile.
+     * @param inputFile File to read.
+     * @return The index, or null if the file cannot be read.
      */
-    private Map<String, InputFile> getScannedFiles(final FileSystem fileSystem, final CheckstyleReport checkstyleReport) {
-        // Contains the result to be returned.
-        final Map<String, InputFile> result = new HashMap<>();
-        final List<CheckstyleFile> files = checkstyleReport.getCheckstyleFiles();
-
-        // Looks for each file in file system, print an error if not found.
-        for(final CheckstyleFile file : files) {
-            // Checks if the file system contains a file with corresponding path (relative or absolute).
-            FilePredicate predicate = fileSystem.predicates().hasPath(file.name);
-            InputFile inputFile = fileSystem.inputFile(predicate);
-            if(inputFile!=null) {
-                result.put(file.name, inputFile);
-            } else {
-                LOGGER.error(String.format(
-                        "The source file '%s' was not found.",
-                        file.name
-                ));
-            }
+    private static LineIndex index(final InputFile inputFile) {
+        LineIndex index = null;
+        try {
+            index = LineIndex.of(inputFile);
+        } catch (IOException e) {
+            LOGGER.debug(e.getMessage(), e);
         }
-
-        return result;
+        return index;
     }
 
     /**
@@ -303,10 +590,9 @@ public class ShellcheckSensor implements Sensor {
      *
      * @param config Configuration of the analysis where properties are put.
      * @param fileSystem The current file system.
-     * @param autolaunch auto-launch activation
      * @return Return a list of path 'findable' in the file system.
      */
-    private List<String> getReportFiles(final Configuration config, final FileSystem fileSystem, final boolean autolaunch) {
+    private List<String> getReportFiles(final Configuration config, final FileSystem fileSystem) {
         // Contains the result to be returned.
         final List<String> result = new ArrayList<>();
 
@@ -314,16 +600,17 @@ public class ShellcheckSensor implements Sensor {
         final String regex = config.get(ShellcheckPluginProperties.REPORT_REGEX_KEY).orElse(ShellcheckPluginProperties.REPORT_REGEX_DEFAULT);
         // Check if each path is known by the file system and add it to the processable path list,
         // otherwise print a warning and ignore this result file.
-        // Add files matching user's defined regex.
-        result.addAll(Arrays.asList(fileSystem.baseDir().list(
-                (fileDir, fileName) -> Pattern.matches(regex, fileName)
-        )));
-        // If auto-launch is enabled, add default results (generated by the auto-launch)
-        if(autolaunch && !regex.equals(ShellcheckPluginProperties.REPORT_REGEX_DEFAULT)){
-            LOGGER.info("files detection (autolaunch enabled)");
-            result.addAll(Arrays.asList(fileSystem.baseDir().list(
-                    (fileDir, fileName) -> Pattern.matches(ShellcheckPluginProperties.REPORT_REGEX_DEFAULT, fileName)
-            )));
+        // Add files matching user's defined regex, compressed or not.
+        final Pattern pattern = Pattern.compile(regex);
+        final File[] reports = fileSystem.baseDir().listFiles(
+                (fileDir, fileName) -> pattern.matcher(fileName).matches()
+                        || (fileName.endsWith(GZIP_EXTENSION) && pattern.matcher(
+                                fileName.substring(0, fileName.length() - GZIP_EXTENSION.length())).matches())
+        );
+        if(reports != null) {
+            for(final File report : reports) {
+                result.add(report.getPath());
+            }
         }
         if(result.isEmpty()){
                 LOGGER.info("No shellcheck result file has been found.");
@@ -333,17 +620,104 @@ public class ShellcheckSensor implements Sensor {
     }
 
     /**
-     * Check if a rule is activated in current analysis.
+     * Save the issues of reports while they are read.
      *
-     * @param activeRules Set of active rules during an analysis.
-     * @param rule Key (ShellCheck) of the rule to check.
-     * @return True if the rule is active and false if not or not exists.
+     * Each file name is resolved once in the file system for all reports.
      */
-    private boolean isRuleActive(final ActiveRules activeRules, final String rule) {
-        final RuleKey ruleKeyShell = RuleKey.of(ShellcheckRulesDefinition.getRepositoryKeyForLanguage(ShellLanguage.KEY), rule);
-        return activeRules.find(ruleKeyShell)!=null;
-    }
+    private final class ReportImporter implements IssueHandler {
+
+        /**
+         * Provide SonarQube services to register results.
+         */
+        private final SensorContext sensorContext;
+
+        /**
+         * Index of the active rules.
+         */
+        private final ActiveRuleIndex rules;
+
+        /**
+         * Counters of the issues which are not saved.
+         */
+        private final IgnoredIssues ignored;
+
+        /**
+         * Resolver of the file names found in reports.
+         */
+        private final PathResolver resolver;
+
+        /**
+         * Line indexes of the last files having issues, most recent last.
+         */
+        private final Map<InputFile, Optional<LineIndex>> lines = new LinkedHashMap<InputFile, Optional<LineIndex>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<InputFile, Optional<LineIndex>> eldest) {
+                return size() > LINE_INDEXES;
+            }
+        };
+
+        /**
+         * Issues already saved, an issue found by several reports is saved once.
+         */
+        private final IssueDeduplicator saved = new IssueDeduplicator();
+
+        /**
+         * Statistics of the analysis.
+         */
+        private final SensorStatistics statistics;
+
+        /**
+         * Create an importer.
+         *
+         * @param sensorContext Provide SonarQube services to register results.
+         * @param rules Index of the active rules.
+         * @param ignored Counters of the issues which are not saved.
+         * @param resolver Resolver of the file names found in reports.
+         */
+        private ReportImporter(final SensorContext sensorContext, final ActiveRuleIndex rules,
+                               final IgnoredIssues ignored, final PathResolver resolver,
+                               final SensorStatistics statistics) {
+            this.sensorContext = sensorContext;
+            this.statistics = statistics;
+            this.rules = rules;
+            this.ignored = ignored;
+            this.resolver = resolver;
+        }
 
-}
+        @Override
+        public void comment(final String file, final int line, final int endLine, final int column, final int endColumn,
+                            final String level, final int code, final String message) {
+            statistics.add(SensorStatistics.Counter.DIAGNOSTICS, 1);
+            final RuleKey ruleKey = rules.get(code);
+            // Issues of inactive rules are resolved too, they are part of the measured diagnostics.
+            final long resolution = statistics.start();
+            final InputFile inputFile = resolver.resolve(file);
+            statistics.stop(SensorStatistics.Phase.RESOLUTION, resolution);
+            if(inputFile == null) {
+                if(ruleKey == null) {
+                    ignored.inactiveRule(code);
+                } else {
+                    ignored.missingFile(file, ruleKey.rule());
+                }
+                statistics.add(SensorStatistics.Counter.IGNORED, 1);
+            } else if(!saved.add(inputFile, line, column, code)) {
+                ignored.duplicate(file, line, code);
+                statistics.add(SensorStatistics.Counter.IGNORED, 1);
+            } else if(ruleKey == null) {
+                statistics.add(SensorStatistics.Counter.PROJECT_DIAGNOSTICS, 1);
+                ignored.inactiveRule(code);
+                statistics.add(SensorStatistics.Counter.IGNORED, 1);
+            } else {
+                statistics.add(SensorStatistics.Counter.PROJECT_DIAGNOSTICS, 1);
+                final long saving = statistics.start();
+                // Issues of a file are usually contiguous, its lines are indexed once for all of them.
+                final LineIndex index = lines.computeIfAbsent(inputFile, key -> Optional.ofNullable(index(key))).orElse(null);
+                saveIssue(sensorContext, inputFile, index, ruleKey, message, line, column, endLine, endColumn);
+                statistics.stop(SensorStatistics.Phase.SAVING, saving);
+                statistics.add(SensorStatistics.Counter.SAVED, 1);
+            }
+        }
 
+    }
 
+}
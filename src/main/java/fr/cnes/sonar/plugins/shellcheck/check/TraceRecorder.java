@@ -0,0 +1,166 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timeline of the shellcheck processes in the Chrome trace event format.
+ *
+ * Spans are recorded as complete events on the thread running them, the
+ * resulting file can be opened with chrome://tracing or Perfetto. A disabled
+ * recorder ignores all spans. An instance can be updated by several threads.
+ *
+ * @author lequal
+ */
+public class TraceRecorder {
+
+    /**
+     * True if spans are recorded.
+     */
+    private final boolean enabled;
+
+    /**
+     * Origin of the timestamps.
+     */
+    private final long origin = System.nanoTime();
+
+    /**
+     * Recorded events, already formatted.
+     */
+    private final Queue<String> events = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Names of the threads having recorded a span, by identifier.
+     */
+    private final Map<Long, String> threads = new ConcurrentHashMap<>();
+
+    /**
+     * Create a recorder.
+     *
+     * @param enabled True to record spans, false to ignore them.
+     */
+    public TraceRecorder(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Getter for the state of the recorder.
+     *
+     * @return True if spans are recorded.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Read the clock of the recorder.
+     *
+     * @return A timestamp in nanoseconds, to give to {@link #span(String, long, long, String...)}.
+     */
+    public long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a span on the current thread.
+     *
+     * @param name Name of the span.
+     * @param start Timestamp of its start, given by {@link #now()}.
+     * @param end Timestamp of its end, given by {@link #now()}.
+     * @param args Names and values of its arguments, in turn.
+     */
+    public void span(final String name, final long start, final long end, final String... args) {
+        if(!enabled) {
+            return;
+        }
+        final Thread thread = Thread.currentThread();
+        threads.putIfAbsent(thread.getId(), thread.getName());
+        final StringBuilder event = new StringBuilder("{\"name\":").append(quote(name))
+                .append(",\"cat\":\"shellcheck\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(thread.getId())
+                .append(",\"ts\":").append(TimeUnit.NANOSECONDS.toMicros(start - origin))
+                .append(",\"dur\":").append(TimeUnit.NANOSECONDS.toMicros(Math.max(0, end - start)))
+                .append(",\"args\":{");
+        for(int i = 0; i + 1 < args.length; i += 2) {
+            event.append(i == 0 ? "" : ",").append(quote(args[i])).append(':').append(quote(args[i + 1]));
+        }
+        events.add(event.append("}}").toString());
+    }
+
+    /**
+     * Getter for the number of recorded spans.
+     *
+     * @return Number of spans.
+     */
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Write the trace, with the names of the threads.
+     *
+     * @param file File to write, replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(final File file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            String separator = "\n";
+            for(final Map.Entry<Long, String> thread : threads.entrySet()) {
+                writer.write(separator + "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey()
+                        + ",\"args\":{\"name\":" + quote(thread.getValue()) + "}}");
+                separator = ",\n";
+            }
+            for(final String event : events) {
+                writer.write(separator + event);
+                separator = ",\n";
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    /**
+     * Quote a string for JSON.
+     *
+     * @param value String to quote.
+     * @return The quoted string.
+     */
+    private static String quote(final String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+        for(int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if(c < ' ') {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.measures;
+
+import fr.cnes.sonar.plugins.shellcheck.languages.ShellLanguage;
+import org.sonar.api.ce.measure.Component;
+import org.sonar.api.ce.measure.Measure;
+import org.sonar.api.ce.measure.MeasureComputer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregation of the shellcheck measures of the modules on their parents.
+ *
+ * The sensor saves its measures on the module it analyses. A component without
+ * its own measures receives the sums of its children and a density computed
+ * from these sums, so that multi-module projects have a project value.
+ * A module having its own measures keeps them.
+ *
+ * @author lequal
+ */
+public class ShellcheckMeasureComputer implements MeasureComputer {
+
+    /**
+     * Keys of the metrics summed over the children.
+     */
+    private static final List<String> SUMMED = new ArrayList<>();
+
+    static {
+        SUMMED.add(ShellcheckMetrics.EXECUTION_TIME.key());
+        SUMMED.add(ShellcheckMetrics.DIAGNOSTICS.key());
+        SUMMED.add(ShellcheckMetrics.LINES.key());
+        for(final String interpreter : ShellLanguage.INTERPRETERS) {
+            SUMMED.add(ShellcheckMetrics.scripts(interpreter).key());
+        }
+    }
+
+    /**
+     * Declare the metrics read and written by the computer.
+     *
+     * @param defContext Context creating the definition.
+     * @return Definition of the computer.
+     */
+    @Override
+    public MeasureComputerDefinition define(final MeasureComputerDefinitionContext defContext) {
+        // Density is only written, it is computed from the summed diagnostics and lines.
+        final List<String> outputs = new ArrayList<>(SUMMED);
+        outputs.add(ShellcheckMetrics.DIAGNOSTICS_DENSITY.key());
+        return defContext.newDefinitionBuilder()
+                .setInputMetrics(SUMMED.toArray(new String[0]))
+                .setOutputMetrics(outputs.toArray(new String[0]))
+                .build();
+    }
+
+    /**
+     * Sum the measures of the children of a component without its own measures.
+     *
+     * @param context Context of the component.
+     */
+    @Override
+    public void compute(final MeasureComputerContext context) {
+        // Files never have shellcheck measures and modules analysed by the sensor keep theirs.
+        if(context.getComponent().getType() == Component.Type.FILE
+                || context.getMeasure(ShellcheckMetrics.DIAGNOSTICS.key()) != null) {
+            return;
+        }
+        for(final String metric : SUMMED) {
+            if(ShellcheckMetrics.EXECUTION_TIME.key().equals(metric)) {
+                long sum = 0;
+                boolean found = false;
+                for(final Measure child : context.getChildrenMeasures(metric)) {
+                    sum += child.getLongValue();
+                    found = true;
+                }
+                if(found) {
+                    context.addMeasure(metric, sum);
+                }
+            } else {
+                final Integer sum = sumInt(context, metric);
+                if(sum != null) {
+                    context.addMeasure(metric, sum.intValue());
+                }
+            }
+        }
+        final Integer diagnostics = sumInt(context, ShellcheckMetrics.DIAGNOSTICS.key());
+        final Integer lines = sumInt(context, ShellcheckMetrics.LINES.key());
+        // Density is meaningless without shell lines.
+        if(diagnostics != null && lines != null && lines > 0) {
+            context.addMeasure(ShellcheckMetrics.DIAGNOSTICS_DENSITY.key(), diagnostics * 1000.0 / lines);
+        }
+    }
+
+    /**
+     * Sum the integer measures of the children of a component.
+     *
+     * @param context Context of the component.
+     * @param metric Key of the metric.
+     * @return The sum or null if no child has a measure.
+     */
+    private static Integer sumInt(final MeasureComputerContext context, final String metric) {
+        Integer sum = null;
+        for(final Measure child : context.getChildrenMeasures(metric)) {
+            sum = (sum == null ? 0 : sum) + child.getIntValue();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.measures;
+
+import fr.cnes.sonar.plugins.shellcheck.languages.ShellLanguage;
+import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.measures.Metrics;
+
+import java.util.*;
+
+/**
+ * Project measures of the cost of shellcheck analyses and of their issue density.
+ *
+ * @author lequal
+ */
+public class ShellcheckMetrics implements Metrics {
+
+    /**
+     * Time spent by shellcheck processes, summed over threads.
+     */
+    public static final Metric<Long> EXECUTION_TIME = new Metric.Builder("shellcheck_execution_time",
+            "Shellcheck execution time", Metric.ValueType.MILLISEC)
+            .setDescription("Time spent by shellcheck processes during the last analysis, summed over threads")
+            .setDirection(Metric.DIRECTION_WORST)
+            .setQualitative(false)
+            .setDomain(ShellcheckPluginProperties.SHELLCHECK_NAME)
+            .create();
+
+    /**
+     * Number of distinct diagnostics on files of the project, active rules or not.
+     */
+    public static final Metric<Integer> DIAGNOSTICS = new Metric.Builder("shellcheck_diagnostics",
+            "Shellcheck diagnostics", Metric.ValueType.INT)
+            .setDescription("Distinct diagnostics produced by shellcheck on project files, including those of inactive rules")
+            .setDirection(Metric.DIRECTION_WORST)
+            .setQualitative(false)
+            .setDomain(ShellcheckPluginProperties.SHELLCHECK_NAME)
+            .create();
+
+    /**
+     * Number of diagnostics per thousand lines of shell files.
+     */
+    public static final Metric<Double> DIAGNOSTICS_DENSITY = new Metric.Builder("shellcheck_diagnostics_density",
+            "Shellcheck diagnostics per KLOC", Metric.ValueType.FLOAT)
+            .setDescription("Diagnostics produced by shellcheck per thousand lines of shell files")
+            .setDirection(Metric.DIRECTION_WORST)
+            .setQualitative(false)
+            .setDomain(ShellcheckPluginProperties.SHELLCHECK_NAME)
+            .setDecimalScale(1)
+            .create();
+
+    /**
+     * Number of lines of shell files, hidden as it is only needed to aggregate the density.
+     */
+    public static final Metric<Integer> LINES = new Metric.Builder("shellcheck_lines",
+            "Shellcheck lines", Metric.ValueType.INT)
+            .setDescription("Lines of the shell files of the project")
+            .setDirection(Metric.DIRECTION_NONE)
+            .setQualitative(false)
+            .setDomain(ShellcheckPluginProperties.SHELLCHECK_NAME)
+            .setHidden(true)
+            .create();
+
+    /**
+     * Number of scripts analysed by the auto-launch, by interpreter.
+     */
+    private static final Map<String, Metric<Integer>> SCRIPTS = new LinkedHashMap<>();
+
+    static {
+        for(final String interpreter : ShellLanguage.INTERPRETERS) {
+            SCRIPTS.put(interpreter, new Metric.Builder("shellcheck_scripts_" + interpreter,
+                    "Shellcheck " + interpreter + " scripts", Metric.ValueType.INT)
+                    .setDescription("Scripts analysed by the shellcheck auto-launch with the " + interpreter + " dialect")
+                    .setDirection(Metric.DIRECTION_NONE)
+                    .setQualitative(false)
+                    .setDomain(ShellcheckPluginProperties.SHELLCHECK_NAME)
+                    .create());
+        }
+    }
+
+    /**
+     * Retrieve the metric counting the scripts of an interpreter.
+     *
+     * @param interpreter Dialect given to shellcheck, one of {@link ShellLanguage#INTERPRETERS}.
+     * @return The metric or null for an unknown interpreter.
+     */
+    public static Metric<Integer> scripts(final String interpreter) {
+        return SCRIPTS.get(interpreter);
+    }
+
+    /**
+     * Give all metrics of the plugin.
+     *
+     * @return Metrics to register.
+     */
+    @Override
+    public List<Metric> getMetrics() {
+        final List<Metric> metrics = new ArrayList<>(Arrays.asList(EXECUTION_TIME, DIAGNOSTICS, DIAGNOSTICS_DENSITY,
+                LINES));
+        metrics.addAll(SCRIPTS.values());
+        return metrics;
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming reader of shellcheck checkstyle reports.
+ *
+ * The report is walked with StAX, each error being given to an {@link IssueHandler}
+ * as soon as it is read, so memory does not depend on the size of the report.
+ * The factory is created once and shared, it is only used to create readers.
+ *
+ * @author lequal
+ */
+public final class CheckstyleReader {
+
+    /**
+     * Prefix of the checkstyle source of shellcheck checks.
+     */
+    private static final String SOURCE_PREFIX = "SC";
+
+    /**
+     * Factory of StAX readers, without DTD nor external entities support.
+     */
+    private static final XMLInputFactory FACTORY = newFactory();
+
+    /**
+     * Private constructor for this utility class.
+     */
+    private CheckstyleReader() {}
+
+    /**
+     * Read a report and give each of its files and errors to a handler.
+     *
+     * @param input Report, not closed by this method.
+     * @param handler Receiver of the files and errors, in the order of the report.
+     * @throws IOException If the report cannot be read or is not a checkstyle report.
+     */
+    public static void read(final InputStream input, final IssueHandler handler) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(input);
+            String file = null;
+            while (reader.hasNext()) {
+                if(reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    final String element = reader.getLocalName();
+                    if("file".equals(element)) {
+                        file = reader.getAttributeValue(null, "name");
+                        handler.file(file);
+                    } else if("error".equals(element)) {
+                        readError(reader, file, handler);
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * Give the current error element to a handler.
+     *
+     * @param reader Reader positioned on an error element.
+     * @param file Name of the enclosing file.
+     * @param handler Receiver of the error.
+     * @throws IOException If the error is outside a file or has no line.
+     */
+    private static void readError(final XMLStreamReader reader, final String file, final IssueHandler handler)
+            throws IOException {
+        final int line = toInt(reader.getAttributeValue(null, "line"));
+        if(file == null || line <= 0) {
+            throw new IOException("Error without file or line in shellcheck checkstyle report.");
+        }
+        handler.comment(file, line,
+                toInt(reader.getAttributeValue(null, "endLine")),
+                toInt(reader.getAttributeValue(null, "column")),
+                toInt(reader.getAttributeValue(null, "endColumn")),
+                reader.getAttributeValue(null, "severity"),
+                toCode(reader.getAttributeValue(null, "source")),
+                reader.getAttributeValue(null, "message"));
+    }
+
+    /**
+     * Parse an optional position.
+     *
+     * @param value Attribute value, possibly null.
+     * @return The position, 0 if it is missing or invalid.
+     */
+    private static int toInt(final String value) {
+        int result = 0;
+        if(value != null) {
+            try {
+                result = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                result = 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Extract the number of a shellcheck check from its source, like ShellCheck.SC2086.
+     *
+     * @param source Attribute value, possibly null.
+     * @return The number of the check, 0 if it is not a shellcheck source.
+     */
+    public static int toCode(final String source) {
+        int result = 0;
+        if(source != null) {
+            final int start = source.lastIndexOf(SOURCE_PREFIX);
+            if(start >= 0) {
+                result = toInt(source.substring(start + SOURCE_PREFIX.length()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Release a reader, if any.
+     *
+     * @param reader Reader to close, possibly null.
+     */
+    private static void close(final XMLStreamReader reader) {
+        if(reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // Nothing more to release.
+            }
+        }
+    }
+
+    /**
+     * Create the shared factory.
+     *
+     * @return A factory ignoring DTD and external entities.
+     */
+    private static XMLInputFactory newFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+}
@@ -0,0 +1,355 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact storage of the issues of shellcheck files.
+ *
+ * Issues are stored in columns of primitives: a few arrays for the whole batch
+ * instead of several objects per issue. Files are stored once and referenced
+ * by index, severities by ordinal and messages are shared through a
+ * {@link StringPool}. A batch also records analysed files without issue.
+ * A batch is filled by a single thread, then it can be read by another one.
+ *
+ * @author lequal
+ */
+public class IssueBatch implements IssueHandler {
+
+    /**
+     * Initial number of issues a batch can hold.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Pool sharing messages.
+     */
+    private final StringPool messages;
+
+    /**
+     * Names of the files, in order of appearance.
+     */
+    private final List<String> files = new ArrayList<>();
+
+    /**
+     * Indexes of the files by name.
+     */
+    private final Map<String, Integer> fileIndexes = new HashMap<>();
+
+    /**
+     * Number of issues.
+     */
+    private int size = 0;
+
+    /**
+     * Indexes of the files of the issues.
+     */
+    private int[] fileColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * First lines of the issues.
+     */
+    private int[] lineColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * Last lines of the issues, 0 if unknown.
+     */
+    private int[] endLineColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * First columns of the issues, 0 if unknown.
+     */
+    private int[] columnColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * Columns following the issues, 0 if unknown.
+     */
+    private int[] endColumnColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * Numbers of the shellcheck checks of the issues.
+     */
+    private int[] codeColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * Ordinals of the severities of the issues, negative if unknown.
+     */
+    private byte[] severityColumn = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Pooled descriptions of the issues.
+     */
+    private String[] messageColumn = new String[INITIAL_CAPACITY];
+
+    /**
+     * Create an empty batch.
+     *
+     * @param messages Pool sharing messages, possibly shared with other batches.
+     */
+    public IssueBatch(final StringPool messages) {
+        this.messages = messages;
+    }
+
+    @Override
+    public void file(final String file) {
+        indexOf(file);
+    }
+
+    @Override
+    public void comment(final String file, final int line, final int endLine, final int column, final int endColumn,
+                        final String level, final int code, final String message) {
+        final Severity severity = Severity.of(level);
+        add(indexOf(file), line, endLine, column, endColumn, severity == null ? -1 : severity.ordinal(), code,
+                messages.get(message));
+    }
+
+    /**
+     * Add an issue.
+     *
+     * @param file Index of the file.
+     * @param line First line of the issue.
+     * @param endLine Last line of the issue, 0 if unknown.
+     * @param column First column of the issue, 0 if unknown.
+     * @param endColumn Column following the issue, 0 if unknown.
+     * @param severity Ordinal of the severity, negative if unknown.
+     * @param code Number of the shellcheck check.
+     * @param message Pooled description of the issue.
+     */
+    private void add(final int file, final int line, final int endLine, final int column, final int endColumn,
+                     final int severity, final int code, final String message) {
+        if(size == lineColumn.length) {
+            grow();
+        }
+        fileColumn[size] = file;
+        lineColumn[size] = line;
+        endLineColumn[size] = endLine;
+        columnColumn[size] = column;
+        endColumnColumn[size] = endColumn;
+        severityColumn[size] = (byte) severity;
+        codeColumn[size] = code;
+        messageColumn[size] = message;
+        size++;
+    }
+
+    /**
+     * Add all files and issues of another batch.
+     *
+     * @param other Batch to copy.
+     */
+    public void addAll(final IssueBatch other) {
+        final int[] indexes = new int[other.files.size()];
+        for(int i = 0; i < indexes.length; i++) {
+            indexes[i] = indexOf(other.files.get(i));
+        }
+        for(int i = 0; i < other.size; i++) {
+            add(indexes[other.fileColumn[i]], other.lineColumn[i], other.endLineColumn[i], other.columnColumn[i],
+                    other.endColumnColumn[i], other.severityColumn[i], other.codeColumn[i],
+                    messages.get(other.messageColumn[i]));
+        }
+    }
+
+    /**
+     * Give all files, then all issues, to a handler.
+     *
+     * @param handler Receiver of the files and issues.
+     */
+    public void replay(final IssueHandler handler) {
+        for(final String file : files) {
+            handler.file(file);
+        }
+        for(int i = 0; i < size; i++) {
+            replay(i, handler);
+        }
+    }
+
+    /**
+     * Give an issue to a handler.
+     *
+     * @param issue Index of the issue.
+     * @param handler Receiver of the issue.
+     */
+    public void replay(final int issue, final IssueHandler handler) {
+        final Severity severity = Severity.of(severityColumn[issue]);
+        handler.comment(files.get(fileColumn[issue]), lineColumn[issue], endLineColumn[issue], columnColumn[issue],
+                endColumnColumn[issue], severity == null ? null : severity.getLevel(), codeColumn[issue], messageColumn[issue]);
+    }
+
+    /**
+     * Group issues by file.
+     *
+     * @return For each file index, the indexes of its issues in order.
+     */
+    public int[][] issuesByFile() {
+        final int[][] result = new int[files.size()][];
+        final int[] counts = new int[files.size()];
+        for(int i = 0; i < size; i++) {
+            counts[fileColumn[i]]++;
+        }
+        for(int file = 0; file < result.length; file++) {
+            result[file] = new int[counts[file]];
+            counts[file] = 0;
+        }
+        for(int i = 0; i < size; i++) {
+            final int file = fileColumn[i];
+            result[file][counts[file]++] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Getter for the files.
+     *
+     * @return Names of the files, in order of appearance.
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    /**
+     * Getter for the number of issues.
+     *
+     * @return Number of issues in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the first line of an issue.
+     *
+     * @param issue Index of the issue.
+     * @return First line of the issue.
+     */
+    public int getLine(final int issue) {
+        return lineColumn[issue];
+    }
+
+    /**
+     * Getter for the last line of an issue.
+     *
+     * @param issue Index of the issue.
+     * @return Last line of the issue, 0 if unknown.
+     */
+    public int getEndLine(final int issue) {
+        return endLineColumn[issue];
+    }
+
+    /**
+     * Getter for the first column of an issue.
+     *
+     * @param issue Index of the issue.
+     * @return First column of the issue, 0 if unknown.
+     */
+    public int getColumn(final int issue) {
+        return columnColumn[issue];
+    }
+
+    /**
+     * Getter for the column following an issue.
+     *
+     * @param issue Index of the issue.
+     * @return Column following the issue, 0 if unknown.
+     */
+    public int getEndColumn(final int issue) {
+        return endColumnColumn[issue];
+    }
+
+    /**
+     * Getter for the shellcheck check of an issue.
+     *
+     * @param issue Index of the issue.
+     * @return Number of the check without the SC prefix, 0 if unknown.
+     */
+    public int getCode(final int issue) {
+        return codeColumn[issue];
+    }
+
+    /**
+     * Getter for the severity of an issue.
+     *
+     * @param issue Index of the issue.
+     * @return Severity of the issue, null if unknown.
+     */
+    public Severity getSeverity(final int issue) {
+        return Severity.of(severityColumn[issue]);
+    }
+
+    /**
+     * Getter for the message of an issue.
+     *
+     * @param issue Index of the issue.
+     * @return Description of the issue.
+     */
+    public String getMessage(final int issue) {
+        return messageColumn[issue];
+    }
+
+    /**
+     * Add an issue read from a storage.
+     *
+     * @param file Name of the file.
+     * @param line First line of the issue.
+     * @param endLine Last line of the issue, 0 if unknown.
+     * @param column First column of the issue, 0 if unknown.
+     * @param endColumn Column following the issue, 0 if unknown.
+     * @param severity Severity of the issue, possibly null.
+     * @param code Number of the shellcheck check.
+     * @param message Description of the issue.
+     */
+    public void add(final String file, final int line, final int endLine, final int column, final int endColumn,
+                    final Severity severity, final int code, final String message) {
+        add(indexOf(file), line, endLine, column, endColumn, severity == null ? -1 : severity.ordinal(), code,
+                messages.get(message));
+    }
+
+    /**
+     * Retrieve the index of a file, registering it if needed.
+     *
+     * @param file Name of the file.
+     * @return Index of the file.
+     */
+    private int indexOf(final String file) {
+        Integer index = fileIndexes.get(file);
+        if(index == null) {
+            index = files.size();
+            files.add(file);
+            fileIndexes.put(file, index);
+        }
+        return index;
+    }
+
+    /**
+     * Double the capacity of the columns.
+     */
+    private void grow() {
+        final int capacity = lineColumn.length * 2;
+        fileColumn = Arrays.copyOf(fileColumn, capacity);
+        lineColumn = Arrays.copyOf(lineColumn, capacity);
+        endLineColumn = Arrays.copyOf(endLineColumn, capacity);
+        columnColumn = Arrays.copyOf(columnColumn, capacity);
+        endColumnColumn = Arrays.copyOf(endColumnColumn, capacity);
+        severityColumn = Arrays.copyOf(severityColumn, capacity);
+        codeColumn = Arrays.copyOf(codeColumn, capacity);
+        messageColumn = Arrays.copyOf(messageColumn, capacity);
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+/**
+ * Receive the issues of a shellcheck report while it is parsed.
+ *
+ * @author lequal
+ */
+public interface IssueHandler {
+
+    /**
+     * Handle the start of an analysed file, only given by checkstyle reports
+     * which also list files without issue.
+     *
+     * @param file Name of the file as given to shellcheck.
+     */
+    default void file(String file) {
+        // Files are only needed to record files without issue.
+    }
+
+    /**
+     * Handle an issue of the report.
+     *
+     * Positions are 1-based, end column is exclusive, 0 means a missing position.
+     *
+     * @param file Name of the file as given to shellcheck.
+     * @param line First line of the issue.
+     * @param endLine Last line of the issue.
+     * @param column First column of the issue.
+     * @param endColumn Column following the issue.
+     * @param level Severity given by shellcheck (error, warning, info or style).
+     * @param code Number of the shellcheck check without the SC prefix, 0 if unknown.
+     * @param message Description of the issue.
+     */
+    void comment(String file, int line, int endLine, int column, int endColumn,
+                 String level, int code, String message);
+
+}
@@ -0,0 +1,540 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader of shellcheck json1 reports.
+ *
+ * Comments are given to a {@link IssueHandler} as soon as they are read, so a
+ * report is never loaded as a whole. Characters are read through a single
+ * buffer, known keys are compared without being allocated and numbers are
+ * parsed as primitives. Reports of the older json format (a bare array of
+ * comments) are also accepted. Unknown members, like fixes, are skipped.
+ *
+ * @author lequal
+ */
+public final class Json1Reader {
+
+    /**
+     * Number of characters read at once.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Severities given by shellcheck, reused instead of allocating a string per comment.
+     */
+    private static final String[] LEVELS = { "error", "warning", "info", "style" };
+
+    /**
+     * Decoded report.
+     */
+    private final Reader reader;
+
+    /**
+     * Characters read but not consumed yet.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * Index of the next character in the buffer.
+     */
+    private int position = 0;
+
+    /**
+     * Number of characters in the buffer.
+     */
+    private int limit = 0;
+
+    /**
+     * Content of the last read string, reused for each string.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Closing characters of the objects and arrays being skipped, innermost last.
+     */
+    private final StringBuilder nesting = new StringBuilder();
+
+    /**
+     * Name of the file of the previous comment, consecutive comments usually share it.
+     */
+    private String file = null;
+
+    /**
+     * Create a reader.
+     *
+     * @param input UTF-8 encoded report.
+     */
+    private Json1Reader(final InputStream input) {
+        this.reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a report and give each of its comments to a handler.
+     *
+     * @param input UTF-8 encoded report, not closed by this method.
+     * @param handler Receiver of the comments, in the order of the report.
+     * @throws IOException If the report cannot be read or is not a json1 report.
+     */
+    public static void read(final InputStream input, final IssueHandler handler) throws IOException {
+        new Json1Reader(input).readDocument(handler);
+    }
+
+    /**
+     * Read the whole document: an object with a comments member, or an array of comments,
+     * possibly preceded by a byte order mark.
+     *
+     * @param handler Receiver of the comments.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private void readDocument(final IssueHandler handler) throws IOException {
+        if(peek() == '\uFEFF') {
+            position++;
+        }
+        if(skipWhitespace() == '[') {
+            readComments(handler);
+        } else {
+            expect('{');
+            if(!consume('}')) {
+                do {
+                    readString();
+                    expect(':');
+                    if(is("comments")) {
+                        readComments(handler);
+                    } else {
+                        skipValue();
+                    }
+                } while (consume(','));
+                expect('}');
+            }
+        }
+        if(skipWhitespace() != -1) {
+            throw error("Unexpected content after the report");
+        }
+    }
+
+    /**
+     * Read an array of comments.
+     *
+     * @param handler Receiver of the comments.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private void readComments(final IssueHandler handler) throws IOException {
+        expect('[');
+        if(!consume(']')) {
+            do {
+                readComment(handler);
+            } while (consume(','));
+            expect(']');
+        }
+    }
+
+    /**
+     * Read a comment and give it to the handler.
+     *
+     * @param handler Receiver of the comment.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private void readComment(final IssueHandler handler) throws IOException {
+        String name = null;
+        String level = null;
+        String message = null;
+        int line = 0;
+        int endLine = 0;
+        int column = 0;
+        int endColumn = 0;
+        int code = 0;
+        expect('{');
+        if(!consume('}')) {
+            do {
+                readString();
+                expect(':');
+                if(is("file")) {
+                    name = readFile();
+                } else if(is("line")) {
+                    line = readInt();
+                } else if(is("endLine")) {
+                    endLine = readInt();
+                } else if(is("column")) {
+                    column = readInt();
+                } else if(is("endColumn")) {
+                    endColumn = readInt();
+                } else if(is("level")) {
+                    level = readLevel();
+                } else if(is("code")) {
+                    code = readInt();
+                } else if(is("message")) {
+                    message = readNullableString();
+                } else {
+                    skipValue();
+                }
+            } while (consume(','));
+            expect('}');
+        }
+        if(name == null || line <= 0 || code <= 0) {
+            throw error("Comment without file, line or code");
+        }
+        handler.comment(name, line, endLine, column, endColumn, level, code, message);
+    }
+
+    /**
+     * Read the name of a file, reusing the previous name if it is the same.
+     *
+     * @return The name of the file, or null.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private String readFile() throws IOException {
+        if(readNullable()) {
+            if(file == null || !is(file)) {
+                file = text.toString();
+            }
+            return file;
+        }
+        return null;
+    }
+
+    /**
+     * Read a severity, reusing the known ones.
+     *
+     * @return The severity, or null.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private String readLevel() throws IOException {
+        String level = null;
+        if(readNullable()) {
+            for(int i = 0; level == null && i < LEVELS.length; i++) {
+                if(is(LEVELS[i])) {
+                    level = LEVELS[i];
+                }
+            }
+            if(level == null) {
+                level = text.toString();
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Read a string or null.
+     *
+     * @return The read string, or null.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private String readNullableString() throws IOException {
+        return readNullable() ? text.toString() : null;
+    }
+
+    /**
+     * Read a string into the text buffer, or the null literal.
+     *
+     * @return True if a string was read, false for null.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private boolean readNullable() throws IOException {
+        if(skipWhitespace() == 'n') {
+            literal("null");
+            return false;
+        }
+        readString();
+        return true;
+    }
+
+    /**
+     * Read a string into the text buffer.
+     *
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private void readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        int c = read();
+        while (c != '"') {
+            if(c == -1) {
+                throw error("Unterminated string");
+            } else if(c == '\\') {
+                text.append(readEscape());
+            } else {
+                text.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Read the character following a backslash in a string.
+     *
+     * @return The escaped character.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private char readEscape() throws IOException {
+        final int c = read();
+        final char result;
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                result = (char) c;
+                break;
+            case 'b':
+                result = '\b';
+                break;
+            case 'f':
+                result = '\f';
+                break;
+            case 'n':
+                result = '\n';
+                break;
+            case 'r':
+                result = '\r';
+                break;
+            case 't':
+                result = '\t';
+                break;
+            case 'u':
+                int value = 0;
+                for(int i = 0; i < 4; i++) {
+                    final int digit = Character.digit(read(), 16);
+                    if(digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                result = (char) value;
+                break;
+            default:
+                throw error("Invalid escape");
+        }
+        return result;
+    }
+
+    /**
+     * Read an integer or null, fractional parts are ignored.
+     *
+     * @return The read value, 0 for null.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private int readInt() throws IOException {
+        int c = skipWhitespace();
+        if(c == 'n') {
+            literal("null");
+            return 0;
+        }
+        final boolean negative = c == '-';
+        if(negative) {
+            position++;
+            c = peek();
+        }
+        if(c < '0' || c > '9') {
+            throw error("Invalid number");
+        }
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            position++;
+            c = peek();
+        }
+        skipNumber();
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skip the remaining characters of a number.
+     *
+     * @throws IOException If the report cannot be read.
+     */
+    private void skipNumber() throws IOException {
+        int c = peek();
+        while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+            position++;
+            c = peek();
+        }
+    }
+
+    /**
+     * Skip any value, including nested objects and arrays.
+     *
+     * Nested values are skipped in a loop, so that a deeply nested value
+     * cannot overflow the stack.
+     *
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private void skipValue() throws IOException {
+        nesting.setLength(0);
+        do {
+            final int c = skipWhitespace();
+            if(c == '{' || c == '[') {
+                position++;
+                final char closing = c == '{' ? '}' : ']';
+                if(!consume(closing)) {
+                    nesting.append(closing);
+                    if(closing == '}') {
+                        readString();
+                        expect(':');
+                    }
+                    continue;
+                }
+            } else {
+                skipScalar(c);
+            }
+            // The value is skipped: close the containers it ends, then go to the next member.
+            while (nesting.length() > 0 && !consume(',')) {
+                expect(nesting.charAt(nesting.length() - 1));
+                nesting.setLength(nesting.length() - 1);
+            }
+            if(nesting.length() > 0 && nesting.charAt(nesting.length() - 1) == '}') {
+                readString();
+                expect(':');
+            }
+        } while (nesting.length() > 0);
+    }
+
+    /**
+     * Skip a string, a literal or a number.
+     *
+     * @param c First character of the value.
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    private void skipScalar(final int c) throws IOException {
+        if(c == '"') {
+            readString();
+        } else if(c == 't') {
+            literal("true");
+        } else if(c == 'f') {
+            literal("false");
+        } else if(c == 'n') {
+            literal("null");
+        } else if(c == '-' || (c >= '0' && c <= '9')) {
+            skipNumber();
+        } else {
+            throw error("Unexpected character");
+        }
+    }
+
+    /**
+     * Read an expected literal.
+     *
+     * @param word Expected literal.
+     * @throws IOException If the report cannot be read or does not contain the literal.
+     */
+    private void literal(final String word) throws IOException {
+        for(int i = 0; i < word.length(); i++) {
+            if(read() != word.charAt(i)) {
+                throw error("Expected " + word);
+            }
+        }
+    }
+
+    /**
+     * Check if the text buffer contains a given string.
+     *
+     * @param value String to compare.
+     * @return True if the last read string is equal to the value.
+     */
+    private boolean is(final String value) {
+        return value.contentEquals(text);
+    }
+
+    /**
+     * Consume an expected character after optional whitespaces.
+     *
+     * @param expected Expected character.
+     * @throws IOException If the report cannot be read or the next character is not the expected one.
+     */
+    private void expect(final char expected) throws IOException {
+        if(!consume(expected)) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    /**
+     * Consume a character after optional whitespaces if it is the given one.
+     *
+     * @param expected Character to consume.
+     * @return True if the character was consumed.
+     * @throws IOException If the report cannot be read.
+     */
+    private boolean consume(final char expected) throws IOException {
+        final boolean found = skipWhitespace() == expected;
+        if(found) {
+            position++;
+        }
+        return found;
+    }
+
+    /**
+     * Skip whitespaces and return the next character without consuming it.
+     *
+     * @return The next character or -1 at the end of the report.
+     * @throws IOException If the report cannot be read.
+     */
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Consume the next character.
+     *
+     * @return The next character or -1 at the end of the report.
+     * @throws IOException If the report cannot be read.
+     */
+    private int read() throws IOException {
+        final int c = peek();
+        if(c != -1) {
+            position++;
+        }
+        return c;
+    }
+
+    /**
+     * Return the next character without consuming it, filling the buffer if needed.
+     *
+     * @return The next character or -1 at the end of the report.
+     * @throws IOException If the report cannot be read.
+     */
+    private int peek() throws IOException {
+        if(position == limit) {
+            limit = Math.max(0, reader.read(buffer, 0, buffer.length));
+            position = 0;
+            if(limit == 0) {
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Create the exception thrown for a malformed report.
+     *
+     * @param message Description of the problem.
+     * @return An exception to throw.
+     */
+    private IOException error(final String message) {
+        return new IOException(message + " in shellcheck json1 report.");
+    }
+
+}
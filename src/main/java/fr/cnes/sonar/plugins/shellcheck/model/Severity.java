@@ -0,0 +1,85 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+/**
+ * Severity of a shellcheck issue.
+ *
+ * @author lequal
+ */
+public enum Severity {
+
+    ERROR("error"),
+    WARNING("warning"),
+    INFO("info"),
+    STYLE("style");
+
+    /**
+     * Severities by ordinal, values() copies its array on each call.
+     */
+    private static final Severity[] VALUES = values();
+
+    /**
+     * Name of the severity in shellcheck reports.
+     */
+    private final String level;
+
+    /**
+     * Create a severity.
+     *
+     * @param level Name of the severity in shellcheck reports.
+     */
+    Severity(final String level) {
+        this.level = level;
+    }
+
+    /**
+     * Getter for the name of the severity in shellcheck reports.
+     *
+     * @return The level, like info.
+     */
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * Find the severity of a level.
+     *
+     * @param level Name of the severity in shellcheck reports, possibly null.
+     * @return The severity, or null for an unknown level.
+     */
+    public static Severity of(final String level) {
+        Severity result = null;
+        for(int i = 0; result == null && i < VALUES.length; i++) {
+            if(VALUES[i].level.equals(level)) {
+                result = VALUES[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the severity of an ordinal.
+     *
+     * @param ordinal Ordinal of the severity, negative for none.
+     * @return The severity, or null.
+     */
+    public static Severity of(final int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Share equal strings, shellcheck messages being heavily repeated.
+ *
+ * Unlike {@link String#intern()}, pooled strings are released with the pool.
+ * A pool can be used by several threads.
+ *
+ * @author lequal
+ */
+public class StringPool {
+
+    /**
+     * Pooled strings, each one being its own key.
+     */
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieve the pooled instance of a string.
+     *
+     * @param value String to share, possibly null.
+     * @return An instance equal to the value, null for null.
+     */
+    public String get(final String value) {
+        if(value == null) {
+            return null;
+        }
+        final String pooled = strings.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * Getter for the number of distinct strings.
+     *
+     * @return Number of pooled strings.
+     */
+    public int size() {
+        return strings.size();
+    }
+
+}
@@ -21,16 +21,24 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import java.io.File;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class used to unmarshal ShellCheck xml file (results and rules definition).
  *
- * It contains useful methods to handle xml files.
+ * It contains useful methods to handle xml files. Reports are better read
+ * with {@link CheckstyleReader} which does not load them in memory.
  *
  * @author lequal
  */
 public class XmlHandler {
 
+    /**
+     * JAXB contexts by destination class, they are thread safe and costly to create.
+     */
+    private static final Map<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
     /**
      * Private constructor for this utility class.
      */
@@ -46,8 +54,7 @@ public class XmlHandler {
      * @throws JAXBException Exception during conversion can be met.
      */
     public static Object unmarshal(final File file, final Class<?> cls) throws JAXBException {
-        final JAXBContext jaxbContext = JAXBContext.newInstance(cls);
-        final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+        final Unmarshaller jaxbUnmarshaller = getContext(cls).createUnmarshaller();
         return jaxbUnmarshaller.unmarshal(file);
     }
 
@@ -61,9 +68,24 @@ public class XmlHandler {
      * @throws JAXBException Exception during conversion can be met.
      */
     public static Object unmarshal(final InputStream file, final Class<?> cls) throws JAXBException {
-        final JAXBContext jaxbContext = JAXBContext.newInstance(cls);
-        final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+        final Unmarshaller jaxbUnmarshaller = getContext(cls).createUnmarshaller();
         return jaxbUnmarshaller.unmarshal(file);
     }
 
+    /**
+     * Retrieve the JAXB context of a class, creating it on first use.
+     *
+     * @param cls Destination class for unmarshalling.
+     * @return The shared context.
+     * @throws JAXBException If the context cannot be created.
+     */
+    private static JAXBContext getContext(final Class<?> cls) throws JAXBException {
+        JAXBContext context = CONTEXTS.get(cls);
+        if(context == null) {
+            context = JAXBContext.newInstance(cls);
+            CONTEXTS.putIfAbsent(cls, context);
+        }
+        return context;
+    }
+
 }
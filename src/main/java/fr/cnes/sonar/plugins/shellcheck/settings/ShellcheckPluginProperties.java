@@ -96,7 +96,7 @@ public class ShellcheckPluginProperties {
     /**
      * Description for the report path property
      **/
-    public static final String REPORT_REGEX_DESC = "Regular expression for Shellcheck checkstyle formatted results in the project directory.";
+    public static final String REPORT_REGEX_DESC = "Regular expression for Shellcheck checkstyle or json1 formatted results in the project directory. Gzip compressed results are also imported when the name without its .gz extension matches.";
     /**
      * Default value for the report path property
      **/
@@ -117,6 +117,246 @@ public class ShellcheckPluginProperties {
      * Launching mode description
      */
     public static final String AUTOLAUNCH_PROP_DESC = "Auto-launch shellcheck on analysis using shellcheck alias (prior installation required).";
+    /**
+     * ShellCheck auto-launch output format key
+     */
+    public static final String FORMAT_PROP_KEY = PROPERTIES_PREFIX + "launch.format";
+    /**
+     * Checkstyle output format
+     */
+    public static final String FORMAT_CHECKSTYLE = "checkstyle";
+    /**
+     * Json1 output format
+     */
+    public static final String FORMAT_JSON1 = "json1";
+    /**
+     * ShellCheck auto-launch output format default value
+     */
+    public static final String FORMAT_PROP_DEFAULT = FORMAT_CHECKSTYLE;
+    /**
+     * Output format name
+     */
+    public static final String FORMAT_PROP_NAME = "Auto-launch output format";
+    /**
+     * Output format description
+     */
+    public static final String FORMAT_PROP_DESC = "Output format asked to shellcheck by the auto-launch: checkstyle or json1. json1 output is smaller and gives the end of each issue, it needs shellcheck 0.7.0 or newer.";
+    /**
+     * ShellCheck executable key
+     */
+    public static final String EXECUTABLE_PROP_KEY = PROPERTIES_PREFIX + "launch.executable";
+    /**
+     * ShellCheck executable default value
+     */
+    public static final String EXECUTABLE_PROP_DEFAULT = "shellcheck";
+    /**
+     * Executable name
+     */
+    public static final String EXECUTABLE_PROP_NAME = "Shellcheck executable";
+    /**
+     * Executable description
+     */
+    public static final String EXECUTABLE_PROP_DESC = "Path of the shellcheck executable run by the auto-launch (default: shellcheck found in the PATH).";
+    /**
+     * ShellCheck parallel executions key
+     */
+    public static final String THREADS_PROP_KEY = PROPERTIES_PREFIX + "threads";
+    /**
+     * Parallel executions name
+     */
+    public static final String THREADS_PROP_NAME = "Shellcheck threads";
+    /**
+     * Parallel executions description
+     */
+    public static final String THREADS_PROP_DESC = "Maximum number of shellcheck processes run at the same time by the auto-launch, and of report files parsed at the same time (default: number of available processors).";
+    /**
+     * ShellCheck raw results key
+     */
+    public static final String KEEP_RESULTS_PROP_KEY = PROPERTIES_PREFIX + "launch.results";
+    /**
+     * ShellCheck raw results default value
+     */
+    public static final String KEEP_RESULTS_PROP_DEFAULT = "false";
+    /**
+     * Raw results name
+     */
+    public static final String KEEP_RESULTS_PROP_NAME = "Shellcheck auto-launch raw results";
+    /**
+     * Raw results description
+     */
+    public static final String KEEP_RESULTS_PROP_DESC = "Copy the output of each shellcheck process run by the auto-launch into the working directory, for debugging.";
+    /**
+     * ShellCheck batch size key
+     */
+    public static final String BATCH_SIZE_PROP_KEY = PROPERTIES_PREFIX + "launch.batch.size";
+    /**
+     * ShellCheck batch size default value
+     */
+    public static final String BATCH_SIZE_PROP_DEFAULT = "0";
+    /**
+     * Batch size name
+     */
+    public static final String BATCH_SIZE_PROP_NAME = "Shellcheck auto-launch batch size";
+    /**
+     * Batch size description
+     */
+    public static final String BATCH_SIZE_PROP_DESC = "Maximum number of files given to a single shellcheck process (0 means only limited by the command line length of the platform).";
+    /**
+     * ShellCheck results cache key
+     */
+    public static final String CACHE_PROP_KEY = PROPERTIES_PREFIX + "cache";
+    /**
+     * ShellCheck results cache default value
+     */
+    public static final String CACHE_PROP_DEFAULT = "false";
+    /**
+     * Results cache name
+     */
+    public static final String CACHE_PROP_NAME = "Shellcheck results cache";
+    /**
+     * Results cache description
+     */
+    public static final String CACHE_PROP_DESC = "Reuse results of previous auto-launch analyses for files whose content, interpreter, shellcheck version and .shellcheckrc files up to the project base directory did not change. Configuration files outside the project, such as ~/.shellcheckrc, are not checked: clear the cache after editing them.";
+    /**
+     * ShellCheck results cache path key
+     */
+    public static final String CACHE_PATH_PROP_KEY = PROPERTIES_PREFIX + "cache.path";
+    /**
+     * Results cache path name
+     */
+    public static final String CACHE_PATH_PROP_NAME = "Shellcheck results cache directory";
+    /**
+     * Results cache path description
+     */
+    public static final String CACHE_PATH_PROP_DESC = "Directory of the results cache, it can be shared between analyses (default: shellcheck-cache in the working directory).";
+    /**
+     * ShellCheck results cache size key
+     */
+    public static final String CACHE_SIZE_PROP_KEY = PROPERTIES_PREFIX + "cache.maxSize";
+    /**
+     * ShellCheck results cache size default value
+     */
+    public static final String CACHE_SIZE_PROP_DEFAULT = "100";
+    /**
+     * Results cache size name
+     */
+    public static final String CACHE_SIZE_PROP_NAME = "Shellcheck results cache maximum size";
+    /**
+     * Results cache size description
+     */
+    public static final String CACHE_SIZE_PROP_DESC = "Maximum size of the results cache in megabytes, least recently used entries are evicted first.";
+    /**
+     * ShellCheck results cache age key
+     */
+    public static final String CACHE_AGE_PROP_KEY = PROPERTIES_PREFIX + "cache.maxAge";
+    /**
+     * ShellCheck results cache age default value
+     */
+    public static final String CACHE_AGE_PROP_DEFAULT = "30";
+    /**
+     * Results cache age name
+     */
+    public static final String CACHE_AGE_PROP_NAME = "Shellcheck results cache maximum age";
+    /**
+     * Results cache age description
+     */
+    public static final String CACHE_AGE_PROP_DESC = "Number of days after which an unused entry of the results cache is evicted.";
+    /**
+     * ShellCheck external sources key
+     */
+    public static final String EXTERNAL_SOURCES_PROP_KEY = PROPERTIES_PREFIX + "launch.externalSources";
+    /**
+     * ShellCheck external sources default value
+     */
+    public static final String EXTERNAL_SOURCES_PROP_DEFAULT = "false";
+    /**
+     * External sources name
+     */
+    public static final String EXTERNAL_SOURCES_PROP_NAME = "Shellcheck auto-launch external sources";
+    /**
+     * External sources description
+     */
+    public static final String EXTERNAL_SOURCES_PROP_DESC = "Allow shellcheck to follow files given to the source command (--external-sources option).";
+    /**
+     * ShellCheck incremental mode key
+     */
+    public static final String CHANGED_ONLY_PROP_KEY = PROPERTIES_PREFIX + "launch.changedOnly";
+    /**
+     * ShellCheck incremental mode default value
+     */
+    public static final String CHANGED_ONLY_PROP_DEFAULT = "false";
+    /**
+     * Incremental mode name
+     */
+    public static final String CHANGED_ONLY_PROP_NAME = "Shellcheck auto-launch incremental mode";
+    /**
+     * Incremental mode description
+     */
+    public static final String CHANGED_ONLY_PROP_DESC = "Only analyse added or changed files, and the files sourcing them directly when external sources are followed: files sourcing them through another file are not analysed. Only applied to pull request analyses, other analyses ignore it so that issues of unchanged files are not closed.";
+    /**
+     * ShellCheck batch timeout key
+     */
+    public static final String TIMEOUT_PROP_KEY = PROPERTIES_PREFIX + "launch.timeout";
+    /**
+     * ShellCheck batch timeout default value
+     */
+    public static final String TIMEOUT_PROP_DEFAULT = "0";
+    /**
+     * Batch timeout name
+     */
+    public static final String TIMEOUT_PROP_NAME = "Shellcheck auto-launch batch timeout";
+    /**
+     * Batch timeout description
+     */
+    public static final String TIMEOUT_PROP_DESC = "Number of seconds after which a shellcheck process is killed and its files analysed again in smaller batches (0 means no limit).";
+    /**
+     * ShellCheck total timeout key
+     */
+    public static final String TOTAL_TIMEOUT_PROP_KEY = PROPERTIES_PREFIX + "launch.totalTimeout";
+    /**
+     * ShellCheck total timeout default value
+     */
+    public static final String TOTAL_TIMEOUT_PROP_DEFAULT = "0";
+    /**
+     * Total timeout name
+     */
+    public static final String TOTAL_TIMEOUT_PROP_NAME = "Shellcheck auto-launch total timeout";
+    /**
+     * Total timeout description
+     */
+    public static final String TOTAL_TIMEOUT_PROP_DESC = "Number of seconds after which running shellcheck processes are killed and remaining files are not analysed (0 means no limit).";
+    /**
+     * ShellCheck statistics file key
+     */
+    public static final String STATISTICS_PROP_KEY = PROPERTIES_PREFIX + "statistics";
+    /**
+     * ShellCheck statistics file default value
+     */
+    public static final String STATISTICS_PROP_DEFAULT = "false";
+    /**
+     * Statistics file name
+     */
+    public static final String STATISTICS_PROP_NAME = "Shellcheck statistics file";
+    /**
+     * Statistics file description
+     */
+    public static final String STATISTICS_PROP_DESC = "Write durations and counters of the shellcheck sensor to shellcheck-statistics.json in the working directory of the analysis. A summary is logged in any case.";
+    /**
+     * ShellCheck trace file key
+     */
+    public static final String TRACE_PROP_KEY = PROPERTIES_PREFIX + "trace";
+    /**
+     * ShellCheck trace file default value
+     */
+    public static final String TRACE_PROP_DEFAULT = "false";
+    /**
+     * Trace file name
+     */
+    public static final String TRACE_PROP_NAME = "Shellcheck auto-launch trace";
+    /**
+     * Trace file description
+     */
+    public static final String TRACE_PROP_DESC = "Write a timeline of the shellcheck processes (spawn, first output, parse and exit of each batch, per worker thread) to shellcheck-trace.json in the working directory of the analysis. The file uses the Chrome trace event format, readable by chrome://tracing or Perfetto.";
 
     private ShellcheckPluginProperties() {
         super();
@@ -143,6 +383,138 @@ public class ShellcheckPluginProperties {
                 .category(SHELLCHECK_NAME)
                 .name(REPORT_REGEX_NAME).description(REPORT_REGEX_DESC)
                 .index(1)
+                .build()
+            ,
+            PropertyDefinition.builder(THREADS_PROP_KEY)
+                .category(SHELLCHECK_NAME)
+                .name(THREADS_PROP_NAME)
+                .description(THREADS_PROP_DESC)
+                .type(PropertyType.INTEGER)
+                .index(2)
+                .build()
+            ,
+            PropertyDefinition.builder(KEEP_RESULTS_PROP_KEY)
+                .defaultValue(KEEP_RESULTS_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(KEEP_RESULTS_PROP_NAME)
+                .description(KEEP_RESULTS_PROP_DESC)
+                .type(PropertyType.BOOLEAN)
+                .index(3)
+                .build()
+            ,
+            PropertyDefinition.builder(BATCH_SIZE_PROP_KEY)
+                .defaultValue(BATCH_SIZE_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(BATCH_SIZE_PROP_NAME)
+                .description(BATCH_SIZE_PROP_DESC)
+                .type(PropertyType.INTEGER)
+                .index(4)
+                .build()
+            ,
+            PropertyDefinition.builder(CACHE_PROP_KEY)
+                .defaultValue(CACHE_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(CACHE_PROP_NAME)
+                .description(CACHE_PROP_DESC)
+                .type(PropertyType.BOOLEAN)
+                .index(5)
+                .build()
+            ,
+            PropertyDefinition.builder(CACHE_PATH_PROP_KEY)
+                .category(SHELLCHECK_NAME)
+                .name(CACHE_PATH_PROP_NAME)
+                .description(CACHE_PATH_PROP_DESC)
+                .index(6)
+                .build()
+            ,
+            PropertyDefinition.builder(CACHE_SIZE_PROP_KEY)
+                .defaultValue(CACHE_SIZE_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(CACHE_SIZE_PROP_NAME)
+                .description(CACHE_SIZE_PROP_DESC)
+                .type(PropertyType.INTEGER)
+                .index(7)
+                .build()
+            ,
+            PropertyDefinition.builder(CACHE_AGE_PROP_KEY)
+                .defaultValue(CACHE_AGE_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(CACHE_AGE_PROP_NAME)
+                .description(CACHE_AGE_PROP_DESC)
+                .type(PropertyType.INTEGER)
+                .index(8)
+                .build()
+            ,
+            PropertyDefinition.builder(EXTERNAL_SOURCES_PROP_KEY)
+                .defaultValue(EXTERNAL_SOURCES_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(EXTERNAL_SOURCES_PROP_NAME)
+                .description(EXTERNAL_SOURCES_PROP_DESC)
+                .type(PropertyType.BOOLEAN)
+                .index(9)
+                .build()
+            ,
+            PropertyDefinition.builder(CHANGED_ONLY_PROP_KEY)
+                .defaultValue(CHANGED_ONLY_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(CHANGED_ONLY_PROP_NAME)
+                .description(CHANGED_ONLY_PROP_DESC)
+                .type(PropertyType.BOOLEAN)
+                .index(10)
+                .build()
+            ,
+            PropertyDefinition.builder(TIMEOUT_PROP_KEY)
+                .defaultValue(TIMEOUT_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(TIMEOUT_PROP_NAME)
+                .description(TIMEOUT_PROP_DESC)
+                .type(PropertyType.INTEGER)
+                .index(11)
+                .build()
+            ,
+            PropertyDefinition.builder(TOTAL_TIMEOUT_PROP_KEY)
+                .defaultValue(TOTAL_TIMEOUT_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(TOTAL_TIMEOUT_PROP_NAME)
+                .description(TOTAL_TIMEOUT_PROP_DESC)
+                .type(PropertyType.INTEGER)
+                .index(12)
+                .build()
+            ,
+            PropertyDefinition.builder(EXECUTABLE_PROP_KEY)
+                .defaultValue(EXECUTABLE_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(EXECUTABLE_PROP_NAME)
+                .description(EXECUTABLE_PROP_DESC)
+                .index(13)
+                .build()
+            ,
+            PropertyDefinition.builder(FORMAT_PROP_KEY)
+                .defaultValue(FORMAT_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(FORMAT_PROP_NAME)
+                .description(FORMAT_PROP_DESC)
+                .type(PropertyType.SINGLE_SELECT_LIST)
+                .options(FORMAT_CHECKSTYLE, FORMAT_JSON1)
+                .index(14)
+                .build()
+            ,
+            PropertyDefinition.builder(STATISTICS_PROP_KEY)
+                .defaultValue(STATISTICS_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(STATISTICS_PROP_NAME)
+                .description(STATISTICS_PROP_DESC)
+                .type(PropertyType.BOOLEAN)
+                .index(15)
+                .build()
+            ,
+            PropertyDefinition.builder(TRACE_PROP_KEY)
+                .defaultValue(TRACE_PROP_DEFAULT)
+                .category(SHELLCHECK_NAME)
+                .name(TRACE_PROP_NAME)
+                .description(TRACE_PROP_DESC)
+                .type(PropertyType.BOOLEAN)
+                .index(16)
                 .build());
     }
 
@@ -37,7 +37,7 @@ public class ShellcheckPluginTest {
 		SonarRuntime runtime = SonarRuntimeImpl.forSonarQube(VERSION_6_7, SonarQubeSide.SERVER);
 		Plugin.Context context = new Plugin.Context(runtime);
         shellcheckPlugin.define(context);
-		Assert.assertEquals(13, context.getExtensions().size());
+		Assert.assertEquals(24, context.getExtensions().size());
 	}
 
 }
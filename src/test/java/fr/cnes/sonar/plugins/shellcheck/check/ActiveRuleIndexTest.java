@@ -0,0 +1,43 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.rule.RuleKey;
+
+public class ActiveRuleIndexTest {
+
+    @Test
+    public void test_index() {
+        final RuleKey sc2086 = RuleKey.of("shell-rules", "ShellCheck.SC2086");
+        final ActiveRuleIndex index = new ActiveRuleIndex(new ActiveRulesBuilder()
+                .create(sc2086).activate()
+                .create(RuleKey.of("other-rules", "ShellCheck.SC3000")).activate()
+                .build());
+
+        Assert.assertSame(sc2086, index.get(2086));
+        Assert.assertSame(sc2086, index.get("ShellCheck.SC2086"));
+        Assert.assertNull(index.get(2034));
+        Assert.assertNull(index.get(3000));
+        Assert.assertNull(index.get(0));
+        Assert.assertNull(index.get("WOW"));
+        Assert.assertNull(index.get(null));
+    }
+
+}
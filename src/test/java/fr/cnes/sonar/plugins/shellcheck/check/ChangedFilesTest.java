@@ -0,0 +1,88 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.config.internal.MapSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class ChangedFilesTest {
+
+    private final Path baseDir = Paths.get("/project").toAbsolutePath();
+
+    @Test
+    public void test_filter() {
+        final InputFile lib = file("lib/common.sh", InputFile.Status.CHANGED, "#!/bin/sh\nlog() { echo \"$1\"; }\n");
+        final InputFile relative = file("lib/run.sh", InputFile.Status.SAME, "#!/bin/sh\n. ./common.sh\n");
+        final InputFile fromBase = file("deploy.sh", InputFile.Status.SAME, "#!/bin/sh\nsource \"lib/common.sh\"\n");
+        final InputFile unrelated = file("other.sh", InputFile.Status.SAME, "#!/bin/sh\nsource \"$DIR/common.sh\"\n");
+        final InputFile added = file("new.sh", InputFile.Status.ADDED, "#!/bin/sh\n");
+
+        final Map<String, List<InputFile>> files = new LinkedHashMap<>();
+        files.put("sh", Arrays.asList(lib, relative, fromBase, unrelated));
+        files.put("bash", Collections.singletonList(added));
+
+        Map<String, List<InputFile>> result = ChangedFiles.filter(files, false, baseDir);
+        Assert.assertEquals(Collections.singletonList(lib), result.get("sh"));
+        Assert.assertEquals(Collections.singletonList(added), result.get("bash"));
+
+        result = ChangedFiles.filter(files, true, baseDir);
+        Assert.assertEquals(Arrays.asList(lib, relative, fromBase), result.get("sh"));
+        Assert.assertEquals(Collections.singletonList(added), result.get("bash"));
+    }
+
+    @Test
+    public void test_skip_invalid_sourced_paths() {
+        final InputFile lib = file("lib/common.sh", InputFile.Status.CHANGED, "#!/bin/sh\n");
+        final InputFile run = file("lib/run.sh", InputFile.Status.SAME, "#!/bin/sh\n. ./bad\u0000.sh\n. ./common.sh\n");
+
+        final Map<String, List<InputFile>> result = ChangedFiles.filter(
+                Collections.singletonMap("sh", Arrays.asList(lib, run)), true, baseDir);
+
+        Assert.assertEquals(Arrays.asList(lib, run), result.get("sh"));
+    }
+
+    @Test
+    public void test_enabled_on_pull_requests_only() {
+        final MapSettings settings = new MapSettings();
+        Assert.assertFalse(ChangedFiles.isEnabled(settings.asConfig()));
+        settings.setProperty(ShellcheckPluginProperties.CHANGED_ONLY_PROP_KEY, "true");
+        // A branch analysis would close issues of unchanged files.
+        Assert.assertFalse(ChangedFiles.isEnabled(settings.asConfig()));
+        settings.setProperty(ChangedFiles.PULL_REQUEST_KEY, "42");
+        Assert.assertTrue(ChangedFiles.isEnabled(settings.asConfig()));
+    }
+
+    private InputFile file(final String path, final InputFile.Status status, final String contents) {
+        return TestInputFileBuilder.create("ProjectKey", path)
+                .setModuleBaseDir(baseDir)
+                .setStatus(status)
+                .setCharset(StandardCharsets.UTF_8)
+                .setContents(contents)
+                .build();
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Runner producing shellcheck-like checkstyle or json1 output without shellcheck.
+ *
+ * Each file argument gets a fixed number of SC2086 issues after a fixed latency,
+ * which allows to test and load the auto-launch on machines without shellcheck.
+ * A latency computed from the files of each batch allows to test timeouts.
+ * A latency between the end of the output and the exit allows to test a
+ * process ending after its output is complete.
+ */
+public class FakeShellcheckRunner implements ShellcheckRunner {
+
+    /**
+     * Size of the pipe between the producer and the reader.
+     */
+    private static final int PIPE_SIZE = 1 << 16;
+
+    /**
+     * Number of issues reported for each file.
+     */
+    private final int issuesPerFile;
+
+    /**
+     * Time spent before reporting each file, in milliseconds.
+     */
+    private final long latency;
+
+    /**
+     * Time spent before reporting a batch, computed from its files, in milliseconds.
+     */
+    private final ToLongFunction<List<String>> batchLatency;
+
+    /**
+     * Time spent between the end of the output and the exit, in milliseconds.
+     */
+    private final long exitLatency;
+
+    /**
+     * True if the output is still written after the process is killed,
+     * as by the children of a wrapper script.
+     */
+    private final boolean orphanOutput;
+
+    /**
+     * Number of started processes.
+     */
+    private final AtomicInteger started = new AtomicInteger();
+
+    /**
+     * Create a runner.
+     *
+     * @param issuesPerFile Number of issues reported for each file.
+     * @param latency Time spent before reporting each file, in milliseconds.
+     */
+    public FakeShellcheckRunner(final int issuesPerFile, final long latency) {
+        this(issuesPerFile, latency, files -> 0, false);
+    }
+
+    /**
+     * Create a runner.
+     *
+     * @param issuesPerFile Number of issues reported for each file.
+     * @param latency Time spent before reporting each file, in milliseconds.
+     * @param batchLatency Time spent before reporting a batch, computed from its files, in milliseconds.
+     * @param orphanOutput True if the output is still written after the process is killed.
+     */
+    public FakeShellcheckRunner(final int issuesPerFile, final long latency,
+                                final ToLongFunction<List<String>> batchLatency, final boolean orphanOutput) {
+        this(issuesPerFile, latency, batchLatency, 0, orphanOutput);
+    }
+
+    /**
+     * Create a runner.
+     *
+     * @param issuesPerFile Number of issues reported for each file.
+     * @param latency Time spent before reporting each file, in milliseconds.
+     * @param batchLatency Time spent before reporting a batch, computed from its files, in milliseconds.
+     * @param exitLatency Time spent between the end of the output and the exit, in milliseconds.
+     * @param orphanOutput True if the output is still written after the process is killed.
+     */
+    public FakeShellcheckRunner(final int issuesPerFile, final long latency,
+                                final ToLongFunction<List<String>> batchLatency, final long exitLatency,
+                                final boolean orphanOutput) {
+        this.issuesPerFile = issuesPerFile;
+        this.latency = latency;
+        this.batchLatency = batchLatency;
+        this.exitLatency = exitLatency;
+        this.orphanOutput = orphanOutput;
+    }
+
+    @Override
+    public Process start(final List<String> command) throws IOException {
+        started.incrementAndGet();
+        return new FakeProcess(command);
+    }
+
+    /**
+     * Getter for the number of started processes.
+     *
+     * @return Number of calls to {@link #start(List)}.
+     */
+    public int getStarted() {
+        return started.get();
+    }
+
+    /**
+     * Write the output of a command.
+     *
+     * @param command Executable followed by its arguments.
+     * @param output Stream receiving the output.
+     * @return Exit code of the command.
+     * @throws IOException If the output cannot be written.
+     * @throws InterruptedException If the process is destroyed.
+     */
+    private int produce(final List<String> command, final Writer output) throws IOException, InterruptedException {
+        int code = 0;
+        final List<String> files = new ArrayList<>();
+        for(final String argument : command.subList(1, command.size())) {
+            if(!argument.startsWith("--")) {
+                files.add(argument);
+            }
+        }
+        if(command.contains("--version")) {
+            TimeUnit.MILLISECONDS.sleep(batchLatency.applyAsLong(files));
+            output.write("ShellCheck - shell script analysis tool\nversion: fake\n");
+        } else if(command.contains("--format=json1")) {
+            TimeUnit.MILLISECONDS.sleep(batchLatency.applyAsLong(files));
+            String separator = "";
+            output.write("{\"comments\":[");
+            for(final String file : files) {
+                TimeUnit.MILLISECONDS.sleep(latency);
+                for(int i = 1; i <= issuesPerFile; i++) {
+                    output.write(separator + "{\"file\":\"" + file.replace("\\", "\\\\") + "\",\"line\":" + i
+                            + ",\"endLine\":" + i + ",\"column\":1,\"endColumn\":3,\"level\":\"info\",\"code\":2086,"
+                            + "\"message\":\"Double quote to prevent globbing and word splitting.\",\"fix\":null}");
+                    separator = ",";
+                    code = 1;
+                }
+            }
+            output.write("]}\n");
+        } else {
+            TimeUnit.MILLISECONDS.sleep(batchLatency.applyAsLong(files));
+            output.write("<?xml version='1.0' encoding='UTF-8'?>\n<checkstyle version='4.3'>\n");
+            for(final String file : files) {
+                TimeUnit.MILLISECONDS.sleep(latency);
+                output.write("<file name='" + file + "' >\n");
+                for(int i = 1; i <= issuesPerFile; i++) {
+                    output.write("<error line='" + i + "' column='1' severity='info'"
+                            + " message='Double quote to prevent globbing and word splitting.' source='ShellCheck.SC2086' />\n");
+                    code = 1;
+                }
+                output.write("</file>\n");
+            }
+            output.write("</checkstyle>\n");
+        }
+        return code;
+    }
+
+    /**
+     * Process whose output is written by a thread of the current JVM.
+     */
+    private final class FakeProcess extends Process {
+
+        /**
+         * Standard output read by the caller.
+         */
+        private final PipedInputStream stdout = new PipedInputStream(PIPE_SIZE);
+
+        /**
+         * Writing end of the standard output.
+         */
+        private final PipedOutputStream sink;
+
+        /**
+         * Thread writing the output.
+         */
+        private final Thread producer;
+
+        /**
+         * Exit code, -1 while running.
+         */
+        private volatile int exitCode = -1;
+
+        /**
+         * Released when the process ends or is destroyed.
+         */
+        private final CountDownLatch exited = new CountDownLatch(1);
+
+        /**
+         * Start producing the output of a command.
+         *
+         * @param command Executable followed by its arguments.
+         * @throws IOException If the pipe cannot be connected.
+         */
+        private FakeProcess(final List<String> command) throws IOException {
+            sink = new PipedOutputStream(stdout);
+            producer = new Thread(() -> {
+                int code = 2;
+                try {
+                    try (Writer output = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8))) {
+                        code = produce(command, output);
+                    }
+                    TimeUnit.MILLISECONDS.sleep(exitLatency);
+                } catch (IOException | InterruptedException e) {
+                    code = 143;
+                }
+                synchronized (this) {
+                    if(exitCode == -1) {
+                        exitCode = code;
+                    }
+                }
+                exited.countDown();
+            });
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return stdout;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            exited.await();
+            return exitCode;
+        }
+
+        @Override
+        public int exitValue() {
+            if(exited.getCount() > 0) {
+                throw new IllegalThreadStateException("Process is running.");
+            }
+            return exitCode;
+        }
+
+        @Override
+        public void destroy() {
+            synchronized (this) {
+                if(exitCode == -1) {
+                    exitCode = 143;
+                }
+            }
+            exited.countDown();
+            // Orphaned children would keep writing the output.
+            if(!orphanOutput) {
+                producer.interrupt();
+                // Closing the writing end wakes up a blocked reader with an end of stream,
+                // whereas closing the reading end leaves it waiting if nothing was written yet.
+                try {
+                    sink.close();
+                } catch (IOException e) {
+                    // Nothing more to release.
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+public class IgnoredIssuesTest {
+
+    @Rule
+    public LogTester logTester = new LogTester();
+
+    @Test
+    public void test_summary() {
+        final IgnoredIssues ignored = new IgnoredIssues();
+        for(int i = 0; i < 1000; i++) {
+            ignored.inactiveRule(2086);
+            ignored.missingFile("a.sh", "ShellCheck.SC2086");
+        }
+        ignored.inactiveRule(9999);
+        ignored.inactiveRule(0);
+
+        ignored.logSummary();
+
+        Assert.assertEquals(1002, ignored.getInactiveRuleIssues());
+        Assert.assertEquals(1000, ignored.getMissingFileIssues());
+        Assert.assertEquals(1, logTester.logs(LoggerLevel.INFO).size());
+        Assert.assertEquals("1002 issue(s) of 3 deactivated rule(s) were ignored: "
+                + "ShellCheck.SC2086 (1000), ShellCheck.SC9999 (1), unknown (1).", logTester.logs(LoggerLevel.INFO).get(0));
+        Assert.assertEquals(1, logTester.logs(LoggerLevel.ERROR).size());
+        Assert.assertTrue(logTester.logs(LoggerLevel.ERROR).get(0).endsWith("a.sh (1000)."));
+    }
+
+}
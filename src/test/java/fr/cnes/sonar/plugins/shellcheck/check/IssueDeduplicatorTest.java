@@ -0,0 +1,47 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+public class IssueDeduplicatorTest {
+
+    @Test
+    public void test_add() {
+        final InputFile a = TestInputFileBuilder.create("ProjectKey", "a.sh").build();
+        final InputFile b = TestInputFileBuilder.create("ProjectKey", "b.sh").build();
+        final IssueDeduplicator deduplicator = new IssueDeduplicator();
+
+        // Enough issues to resize the table several times.
+        for(int line = 1; line <= 5000; line++) {
+            Assert.assertTrue(deduplicator.add(a, line, 3, 2086));
+        }
+        for(int line = 1; line <= 5000; line++) {
+            Assert.assertFalse(deduplicator.add(a, line, 3, 2086));
+        }
+        Assert.assertTrue(deduplicator.add(b, 1, 3, 2086));
+        Assert.assertTrue(deduplicator.add(a, 1, 4, 2086));
+        Assert.assertTrue(deduplicator.add(a, 1, 3, 2034));
+        // Positions too large to be packed are still de-duplicated.
+        Assert.assertTrue(deduplicator.add(a, 1 << 21, 5000, 2086));
+        Assert.assertFalse(deduplicator.add(a, 1 << 21, 5000, 2086));
+    }
+
+}
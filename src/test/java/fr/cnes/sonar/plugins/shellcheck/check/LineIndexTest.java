@@ -0,0 +1,59 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class LineIndexTest {
+
+    private final InputFile file = TestInputFileBuilder.create("ProjectKey", "a.sh")
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents("echo $1\n\techo $2\r\nfoo() {\n}\n")
+            .build();
+
+    @Test
+    public void test_range() throws IOException {
+        final LineIndex index = LineIndex.of(file);
+
+        // Column without end: up to the end of the line.
+        TextRange range = index.range(file, 1, 6, 0, 0);
+        Assert.assertEquals(5, range.start().lineOffset());
+        Assert.assertEquals(7, range.end().lineOffset());
+        // Precise end, moved back to the end of its line if needed.
+        range = index.range(file, 1, 6, 1, 8);
+        Assert.assertEquals(7, range.end().lineOffset());
+        range = index.range(file, 3, 1, 4, 50);
+        Assert.assertEquals(4, range.end().line());
+        Assert.assertEquals(1, range.end().lineOffset());
+        // Tab expanded column cannot be converted.
+        Assert.assertNull(index.range(file, 2, 9, 0, 0));
+        Assert.assertNotNull(index.range(file, 2, 2, 2, 6));
+        // Empty or out of file ranges.
+        Assert.assertNull(index.range(file, 1, 6, 1, 6));
+        Assert.assertNull(index.range(file, 1, 20, 0, 0));
+        Assert.assertNull(index.range(file, 9, 1, 0, 0));
+        Assert.assertNull(index.range(file, 1, 0, 0, 0));
+    }
+
+}
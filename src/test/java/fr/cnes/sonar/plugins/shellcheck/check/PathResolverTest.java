@@ -0,0 +1,97 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PathResolverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DefaultFileSystem fs;
+    private InputFile script;
+
+    @Before
+    public void prepare() throws IOException {
+        final Path baseDir = folder.newFolder("project").toPath();
+        Files.createDirectories(baseDir.resolve("scripts"));
+        Files.write(baseDir.resolve("scripts/run.sh"), "echo hello\n".getBytes());
+        fs = Mockito.spy(new DefaultFileSystem(baseDir));
+        script = TestInputFileBuilder.create("ProjectKey", "scripts/run.sh")
+                .setModuleBaseDir(baseDir)
+                .setLanguage("shell")
+                .build();
+        fs.add(script);
+    }
+
+    @Test
+    public void test_resolve_spellings() {
+        final PathResolver resolver = new PathResolver(fs);
+        final String absolute = fs.baseDir().toPath().resolve("scripts/run.sh").toString();
+
+        Assert.assertSame(script, resolver.resolve("scripts/run.sh"));
+        Assert.assertSame(script, resolver.resolve("./scripts/../scripts/run.sh"));
+        Assert.assertSame(script, resolver.resolve(absolute));
+        // All spellings share a single file system query.
+        verify(fs, times(1)).inputFile(any(FilePredicate.class));
+    }
+
+    @Test
+    public void test_resolve_missing_file_once() {
+        final PathResolver resolver = new PathResolver(fs);
+
+        Assert.assertNull(resolver.resolve("missing.sh"));
+        Assert.assertNull(resolver.resolve("missing.sh"));
+        verify(fs, times(1)).inputFile(any(FilePredicate.class));
+    }
+
+    @Test
+    public void test_resolve_symbolic_link() throws IOException {
+        final Path link = folder.getRoot().toPath().resolve("link.sh");
+        Files.createSymbolicLink(link, fs.baseDir().toPath().resolve("scripts/run.sh"));
+
+        Assert.assertSame(script, new PathResolver(fs).resolve(link.toString()));
+    }
+
+    @Test
+    public void test_registered_file_is_not_looked_up() {
+        final PathResolver resolver = new PathResolver(fs);
+        resolver.register("/somewhere/run.sh", script);
+
+        Assert.assertSame(script, resolver.resolve("/somewhere/run.sh"));
+        verify(fs, times(0)).inputFile(any(FilePredicate.class));
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleReader;
+import fr.cnes.sonar.plugins.shellcheck.model.IssueBatch;
+import fr.cnes.sonar.plugins.shellcheck.model.Json1Reader;
+import fr.cnes.sonar.plugins.shellcheck.model.StringPool;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * Guard the memory used to import reports against regressions.
+ *
+ * Generated reports of increasing size are imported, the bytes allocated by
+ * the importing thread and the heap retained by the parsed report are divided
+ * by the number of diagnostics and compared to the ceilings of
+ * allocation-baseline.properties. Measures are printed in failure messages;
+ * the baseline is updated by hand when a change is expected to cost more.
+ */
+public class ReportImportAllocationTest {
+
+    /**
+     * Numbers of files of the generated reports, each one having {@link #ISSUES_PER_FILE} diagnostics.
+     */
+    private static final int[] SIZES = {100, 500, 2000};
+
+    /**
+     * Number of diagnostics of each file.
+     */
+    private static final int ISSUES_PER_FILE = 20;
+
+    /**
+     * Checks of the diagnostics, used in turn.
+     */
+    private static final int[] CODES = {2086, 2086, 2034, 2006, 1091};
+
+    /**
+     * Ceilings, in bytes per diagnostic.
+     */
+    private static final Properties BASELINE = new Properties();
+
+    /**
+     * Bean giving allocation counters of threads.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void load() throws IOException {
+        Assume.assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        try (InputStream baseline = ReportImportAllocationTest.class.getResourceAsStream("/allocation-baseline.properties")) {
+            BASELINE.load(baseline);
+        }
+    }
+
+    @Test
+    public void test_read_checkstyle_allocations() throws IOException {
+        for(final int files : SIZES) {
+            final byte[] report = checkstyle(files, "/project/");
+            // Warm up so that compiled code is measured.
+            readCheckstyle(report);
+            final long before = allocated();
+            readCheckstyle(report);
+            check("checkstyle.read.allocated", files, allocated() - before);
+        }
+    }
+
+    @Test
+    public void test_read_json1_allocations() throws IOException {
+        for(final int files : SIZES) {
+            final byte[] report = json1(files, "/project/");
+            readJson1(report);
+            final long before = allocated();
+            readJson1(report);
+            check("json1.read.allocated", files, allocated() - before);
+        }
+    }
+
+    @Test
+    public void test_retained_heap() throws Exception {
+        // The used heap only settles if collections can be requested.
+        Assume.assumeFalse(ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:+DisableExplicitGC"));
+        final int files = SIZES[SIZES.length - 1];
+        final byte[] report = checkstyle(files, "/project/");
+        readCheckstyle(report);
+        final long before = usedHeap();
+        final IssueBatch batch = readCheckstyle(report);
+        check("batch.retained", files, usedHeap() - before);
+        Assert.assertEquals(files * ISSUES_PER_FILE, batch.size());
+    }
+
+    @Test
+    public void test_sensor_import_allocations() throws IOException {
+        for(final int files : SIZES) {
+            // Parsing runs on a worker, the calling thread resolves and saves the issues.
+            new ShellcheckSensor().execute(project(files));
+            // Only the sensor is measured, not the building of the project.
+            final SensorContextTester context = project(files);
+            final long before = allocated();
+            new ShellcheckSensor().execute(context);
+            check("sensor.import.allocated", files, allocated() - before);
+            Assert.assertEquals(files * ISSUES_PER_FILE, context.allIssues().size());
+        }
+    }
+
+    /**
+     * Build a project having a generated report to import.
+     *
+     * @param files Number of files of the project.
+     * @return Context of the sensor on the project.
+     * @throws IOException If the project cannot be written.
+     */
+    private SensorContextTester project(final int files) throws IOException {
+        final File baseDir = folder.newFolder();
+        final DefaultFileSystem fileSystem = new DefaultFileSystem(baseDir);
+        fileSystem.setWorkDir(folder.newFolder().toPath());
+        final StringBuilder content = new StringBuilder("#!/bin/bash\n");
+        for(int i = 0; i < ISSUES_PER_FILE; i++) {
+            content.append("echo $var").append(i).append('\n');
+        }
+        for(int file = 0; file < files; file++) {
+            fileSystem.add(TestInputFileBuilder.create("ProjectKey", path(file))
+                    .setModuleBaseDir(baseDir.toPath())
+                    .setLanguage("shell")
+                    .setType(InputFile.Type.MAIN)
+                    .setCharset(StandardCharsets.UTF_8)
+                    .setContents(content.toString())
+                    .build());
+        }
+        Files.write(new File(baseDir, "generated-shellcheck.res").toPath(), checkstyle(files, ""));
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+        context.setFileSystem(fileSystem);
+        context.setSettings(new MapSettings());
+        final ActiveRulesBuilder rules = new ActiveRulesBuilder();
+        for(final int code : new int[]{1091, 2006, 2034, 2086}) {
+            rules.create(RuleKey.of("shell-rules", "ShellCheck.SC" + code)).activate();
+        }
+        context.setActiveRules(rules.build());
+        return context;
+    }
+
+    /**
+     * Compare a measure to its ceiling.
+     *
+     * @param key Key of the ceiling in the baseline.
+     * @param files Number of files of the report.
+     * @param bytes Measured bytes.
+     */
+    private static void check(final String key, final int files, final long bytes) {
+        final double perIssue = (double) bytes / (files * ISSUES_PER_FILE);
+        final double ceiling = Double.parseDouble(BASELINE.getProperty(key));
+        final String measure = String.format("%s: %.1f bytes per diagnostic for %d diagnostics, ceiling %.1f",
+                key, perIssue, files * ISSUES_PER_FILE, ceiling);
+        Assert.assertTrue(measure, perIssue <= ceiling);
+    }
+
+    /**
+     * Read the bytes allocated by the current thread.
+     *
+     * @return A number of bytes.
+     */
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Read the heap used by reachable objects.
+     *
+     * @return A number of bytes.
+     * @throws InterruptedException If interrupted while waiting the collector.
+     */
+    private static long usedHeap() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        // Several collections let the used heap settle.
+        for(int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            used = Math.min(used, Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        }
+        return used;
+    }
+
+    private static IssueBatch readCheckstyle(final byte[] report) throws IOException {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        CheckstyleReader.read(new ByteArrayInputStream(report), batch);
+        return batch;
+    }
+
+    private static IssueBatch readJson1(final byte[] report) throws IOException {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        Json1Reader.read(new ByteArrayInputStream(report), batch);
+        return batch;
+    }
+
+    private static String path(final int file) {
+        return String.format("dir%d/script%d.sh", file / 100, file);
+    }
+
+    private static String message(final int file, final int issue) {
+        return CODES[issue % CODES.length] == 2034 ? String.format("var%d appears unused.", issue)
+                : "Double quote to prevent globbing and word splitting.";
+    }
+
+    private static byte[] checkstyle(final int files, final String root) {
+        final StringBuilder report = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<checkstyle version='4.3'>\n");
+        for(int file = 0; file < files; file++) {
+            report.append("<file name='").append(root).append(path(file)).append("' >\n");
+            for(int issue = 0; issue < ISSUES_PER_FILE; issue++) {
+                report.append("<error line='").append(issue + 2).append("' column='6' severity='info' message='")
+                        .append(message(file, issue)).append("' source='ShellCheck.SC")
+                        .append(CODES[issue % CODES.length]).append("' />\n");
+            }
+            report.append("</file>\n");
+        }
+        return report.append("</checkstyle>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] json1(final int files, final String root) {
+        final StringBuilder report = new StringBuilder("{\"comments\":[");
+        for(int file = 0; file < files; file++) {
+            for(int issue = 0; issue < ISSUES_PER_FILE; issue++) {
+                report.append(file + issue == 0 ? "" : ",").append("{\"file\":\"").append(root).append(path(file))
+                        .append("\",\"line\":").append(issue + 2).append(",\"endLine\":").append(issue + 2)
+                        .append(",\"column\":6,\"endColumn\":10,\"level\":\"info\",\"code\":")
+                        .append(CODES[issue % CODES.length]).append(",\"message\":\"").append(message(file, issue))
+                        .append("\",\"fix\":null}");
+            }
+        }
+        return report.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class ReportLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File checkstyle(final String name, final int issues) throws IOException {
+        final StringBuilder content = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<checkstyle version='4.3'>\n");
+        content.append("<file name='").append(name).append("' >\n");
+        for(int i = 1; i <= issues; i++) {
+            content.append("<error line='").append(i).append("' column='1' severity='info' message='m' source='ShellCheck.SC2086' />\n");
+        }
+        content.append("</file>\n</checkstyle>\n");
+        final File report = folder.newFile(name + "-shellcheck.res");
+        Files.write(report.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        return report;
+    }
+
+    private File json1(final String name, final int issues) throws IOException {
+        final List<String> comments = new ArrayList<>();
+        for(int i = 1; i <= issues; i++) {
+            comments.add("{\"file\":\"" + name + "\",\"line\":" + i + ",\"column\":1,\"level\":\"info\",\"code\":2086,\"message\":\"m\"}");
+        }
+        final File report = folder.newFile(name + "-shellcheck.res");
+        Files.write(report.toPath(), ("{\"comments\":[" + String.join(",", comments) + "]}").getBytes(StandardCharsets.UTF_8));
+        return report;
+    }
+
+    @Test
+    public void test_load_keeps_reports_order() throws IOException, InterruptedException {
+        final File broken = folder.newFile("broken-shellcheck.res");
+        Files.write(broken.toPath(), "<checkstyle><file name='x'>".getBytes(StandardCharsets.UTF_8));
+        final List<File> reports = Arrays.asList(checkstyle("a.sh", 1000), broken, json1("b.sh", 700), checkstyle("c.sh", 3));
+        final List<String> issues = new ArrayList<>();
+        final List<File> failures = new ArrayList<>();
+
+        new ReportLoader(3).load(reports,
+                (file, line, endLine, column, endColumn, level, code, message) -> issues.add(file + ":" + line),
+                (report, e) -> failures.add(report));
+
+        Assert.assertEquals(1703, issues.size());
+        Assert.assertEquals("a.sh:1", issues.get(0));
+        Assert.assertEquals("a.sh:1000", issues.get(999));
+        Assert.assertEquals("b.sh:1", issues.get(1000));
+        Assert.assertEquals("c.sh:3", issues.get(1702));
+        Assert.assertEquals(Arrays.asList(broken), failures);
+    }
+
+    @Test
+    public void test_load_partial_report() throws IOException, InterruptedException {
+        final File report = checkstyle("e.sh", 600);
+        final byte[] content = Files.readAllBytes(report.toPath());
+        Files.write(report.toPath(), Arrays.copyOf(content, content.length - 40));
+        final List<String> issues = new ArrayList<>();
+        final List<IOException> failures = new ArrayList<>();
+
+        new ReportLoader(1).load(Arrays.asList(report),
+                (file, line, endLine, column, endColumn, level, code, message) -> issues.add(file + ":" + line),
+                (failed, e) -> failures.add(e));
+
+        // Issues parsed before the error are imported and the error tells it.
+        Assert.assertEquals(599, issues.size());
+        Assert.assertEquals(1, failures.size());
+        Assert.assertTrue(failures.get(0).getMessage().contains("partially imported: 599 issue(s)"));
+    }
+
+    @Test(timeout = 10000)
+    public void test_load_report_failing_with_error() throws IOException, InterruptedException {
+        // The worker fails with an error instead of an exception.
+        final File failing = new File(folder.getRoot(), "failing-shellcheck.res") {
+            @Override
+            public String getPath() {
+                throw new StackOverflowError();
+            }
+        };
+        final List<String> issues = new ArrayList<>();
+        final List<IOException> failures = new ArrayList<>();
+
+        new ReportLoader(1).load(Arrays.asList(failing, checkstyle("f.sh", 2)),
+                (file, line, endLine, column, endColumn, level, code, message) -> issues.add(file + ":" + line),
+                (failed, e) -> failures.add(e));
+
+        Assert.assertEquals(2, issues.size());
+        Assert.assertEquals(1, failures.size());
+        Assert.assertTrue(failures.get(0).getCause() instanceof StackOverflowError);
+    }
+
+    @Test
+    public void test_load_gzip_report() throws IOException, InterruptedException {
+        final File plain = checkstyle("d.sh", 300);
+        final File compressed = folder.newFile("d-shellcheck.res.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressed.toPath()))) {
+            Files.copy(plain.toPath(), output);
+        }
+        final List<String> issues = new ArrayList<>();
+
+        new ReportLoader(1).load(Arrays.asList(compressed),
+                (file, line, endLine, column, endColumn, level, code, message) -> issues.add(file + ":" + line),
+                (report, e) -> Assert.fail(e.getMessage()));
+
+        Assert.assertEquals(300, issues.size());
+        Assert.assertEquals("d.sh:300", issues.get(299));
+    }
+
+}
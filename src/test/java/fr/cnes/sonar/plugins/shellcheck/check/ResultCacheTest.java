@@ -0,0 +1,120 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.model.IssueBatch;
+import fr.cnes.sonar.plugins.shellcheck.model.Severity;
+import fr.cnes.sonar.plugins.shellcheck.model.StringPool;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private InputFile script;
+
+    @Before
+    public void prepare() throws IOException {
+        directory = folder.newFolder("cache");
+        script = TestInputFileBuilder.create("ProjectKey", "script.sh")
+                .setModuleBaseDir(folder.getRoot().toPath())
+                .setCharset(StandardCharsets.UTF_8)
+                .setContents("#!/bin/sh\necho $1\n")
+                .build();
+    }
+
+    @Test
+    public void test_put_and_get() throws IOException {
+        ResultCache cache = new ResultCache(directory, "0.7.0", folder.getRoot());
+        Assert.assertFalse(cache.get("sh", script, "/project/script.sh", batch()));
+        cache.put(report("/project/script.sh"));
+
+        cache = new ResultCache(directory, "0.7.0", folder.getRoot());
+        final IssueBatch cached = batch();
+        Assert.assertTrue(cache.get("sh", script, "/other/script.sh", cached));
+        Assert.assertEquals(1, cached.getFiles().size());
+        Assert.assertEquals("/other/script.sh", cached.getFiles().get(0));
+        Assert.assertEquals(1, cached.size());
+        Assert.assertEquals(2086, cached.getCode(0));
+        Assert.assertEquals(2, cached.getLine(0));
+        Assert.assertEquals(6, cached.getColumn(0));
+        Assert.assertEquals(0, cached.getEndColumn(0));
+        Assert.assertEquals(Severity.INFO, cached.getSeverity(0));
+
+        // Another interpreter or shellcheck version is a miss.
+        Assert.assertFalse(cache.get("bash", script, "/project/script.sh", batch()));
+        Assert.assertFalse(new ResultCache(directory, "0.8.0", folder.getRoot()).get("sh", script, "/project/script.sh", batch()));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void test_configuration_is_part_of_key() throws IOException {
+        final File configuration = folder.newFile(".shellcheckrc");
+        ResultCache cache = new ResultCache(directory, "0.7.0", folder.getRoot());
+        cache.get("sh", script, "/project/script.sh", batch());
+        cache.put(report("/project/script.sh"));
+        Assert.assertTrue(new ResultCache(directory, "0.7.0", folder.getRoot()).get("sh", script, "/project/script.sh", batch()));
+
+        // Editing the configuration makes previous results stale.
+        Files.write(configuration.toPath(), "disable=SC2086\n".getBytes(StandardCharsets.UTF_8));
+        cache = new ResultCache(directory, "0.7.0", folder.getRoot());
+        Assert.assertFalse(cache.get("sh", script, "/project/script.sh", batch()));
+        final IssueBatch clean = batch();
+        clean.file("/project/script.sh");
+        cache.put(clean);
+        Assert.assertTrue(new ResultCache(directory, "0.7.0", folder.getRoot()).get("sh", script, "/project/script.sh", batch()));
+    }
+
+    @Test
+    public void test_evict() throws IOException {
+        final ResultCache cache = new ResultCache(directory, "0.7.0", folder.getRoot());
+        cache.get("sh", script, "/project/script.sh", batch());
+        cache.put(report("/project/script.sh"));
+
+        cache.evict(Long.MAX_VALUE, Long.MAX_VALUE / 2);
+        Assert.assertTrue(cache.get("sh", script, "/project/script.sh", batch()));
+        cache.evict(0, Long.MAX_VALUE / 2);
+        Assert.assertFalse(cache.get("sh", script, "/project/script.sh", batch()));
+    }
+
+    private static IssueBatch batch() {
+        return new IssueBatch(new StringPool());
+    }
+
+    private static IssueBatch report(final String name) {
+        final IssueBatch report = batch();
+        report.comment(name, 2, 0, 6, 0, "info", 2086,
+                "Double quote to prevent globbing and word splitting.");
+        return report;
+    }
+
+}
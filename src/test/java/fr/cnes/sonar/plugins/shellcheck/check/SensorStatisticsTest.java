@@ -0,0 +1,60 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class SensorStatisticsTest {
+
+    @Test
+    public void test_phases_and_counters() {
+        final SensorStatistics statistics = new SensorStatistics();
+        statistics.stop(SensorStatistics.Phase.EXECUTION, statistics.start() - 5_000_000L);
+        statistics.stop(SensorStatistics.Phase.EXECUTION, statistics.start() - 2_000_000L);
+        statistics.add(SensorStatistics.Counter.SAVED, 2);
+        statistics.add(SensorStatistics.Counter.SAVED, 3);
+
+        Assert.assertEquals(2, statistics.getCalls(SensorStatistics.Phase.EXECUTION));
+        Assert.assertTrue(statistics.getMillis(SensorStatistics.Phase.EXECUTION) >= 7);
+        Assert.assertTrue(statistics.getMaxMillis(SensorStatistics.Phase.EXECUTION) >= 5);
+        Assert.assertEquals(0, statistics.getCalls(SensorStatistics.Phase.PARSING));
+        Assert.assertEquals(5, statistics.get(SensorStatistics.Counter.SAVED));
+    }
+
+    @Test
+    public void test_count_bytes_once() throws IOException {
+        final SensorStatistics statistics = new SensorStatistics();
+        try (InputStream input = statistics.count(new BufferedInputStream(new ByteArrayInputStream(new byte[100])))) {
+            input.mark(10);
+            Assert.assertEquals(4, input.read(new byte[4]));
+            input.reset();
+            Assert.assertEquals(10, input.skip(10));
+            Assert.assertEquals(0, input.read());
+            while (input.read(new byte[32]) > 0) {
+                // Read until the end.
+            }
+        }
+        Assert.assertEquals(100, statistics.get(SensorStatistics.Counter.BYTES));
+    }
+
+}
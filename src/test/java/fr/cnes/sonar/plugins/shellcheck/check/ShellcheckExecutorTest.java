@@ -0,0 +1,196 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import fr.cnes.sonar.plugins.shellcheck.model.IssueBatch;
+import fr.cnes.sonar.plugins.shellcheck.settings.ShellcheckPluginProperties;
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+public class ShellcheckExecutorTest {
+
+    @Test
+    public void test_shard() {
+        List<List<String>> shards = ShellcheckExecutor.shard(Arrays.asList("a", "b", "c", "d", "e"), 2);
+        Assert.assertEquals(2, shards.size());
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), shards.get(0));
+        Assert.assertEquals(Arrays.asList("d", "e"), shards.get(1));
+
+        shards = ShellcheckExecutor.shard(Arrays.asList("a", "b"), 8);
+        Assert.assertEquals(2, shards.size());
+
+        Assert.assertTrue(ShellcheckExecutor.shard(Collections.emptyList(), 4).isEmpty());
+    }
+
+    @Test
+    public void test_batch() {
+        final List<String> files = Arrays.asList("/a b.sh", "/c.sh", "/d.sh", "/e.sh", "/f.sh");
+        List<List<String>> batches = ShellcheckExecutor.batch(files, 2, Long.MAX_VALUE);
+        Assert.assertEquals(3, batches.size());
+        Assert.assertEquals(Arrays.asList("/a b.sh", "/c.sh"), batches.get(0));
+        Assert.assertEquals(Collections.singletonList("/f.sh"), batches.get(2));
+
+        // Each argument takes its bytes, a terminating character and a pointer.
+        final long length = ShellcheckExecutor.commandLength(Arrays.asList("/c.sh", "/d.sh"));
+        batches = ShellcheckExecutor.batch(files.subList(1, 5), 0, length);
+        Assert.assertEquals(2, batches.size());
+        Assert.assertEquals(Arrays.asList("/e.sh", "/f.sh"), batches.get(1));
+
+        // A too long path is still analysed alone.
+        Assert.assertEquals(5, ShellcheckExecutor.batch(files, 0, 1).size());
+    }
+
+    @Test
+    public void test_command_keeps_spaces_in_paths() {
+        final MapSettings settings = new MapSettings();
+        ShellcheckExecutor executor = new ShellcheckExecutor(settings.asConfig(), null, new ProcessShellcheckRunner());
+        List<String> command = executor.command("bash", Collections.singletonList("/my dir/a b.sh"));
+        executor.shutdown();
+        Assert.assertEquals("shellcheck", command.get(0));
+        Assert.assertTrue(command.contains("--shell=bash"));
+        Assert.assertFalse(command.contains("--external-sources"));
+        Assert.assertEquals("/my dir/a b.sh", command.get(command.size() - 1));
+
+        settings.setProperty(ShellcheckPluginProperties.EXTERNAL_SOURCES_PROP_KEY, "true");
+        executor = new ShellcheckExecutor(settings.asConfig(), null, new ProcessShellcheckRunner());
+        command = executor.command("bash", Collections.singletonList("/my dir/a b.sh"));
+        executor.shutdown();
+        Assert.assertTrue(command.contains("--external-sources"));
+    }
+
+    @Test(timeout = 20000)
+    public void test_timed_out_batch_is_analysed_in_halves() throws Exception {
+        // Batches of more than two files never end.
+        final FakeShellcheckRunner runner = new FakeShellcheckRunner(1, 0, files -> files.size() > 2 ? 60000 : 0, false);
+        final ShellcheckExecutor executor = new ShellcheckExecutor(timeouts("1", "0").asConfig(), null, runner);
+        try {
+            final List<Future<IssueBatch>> results = executor.submit("sh", Arrays.asList("/a.sh", "/b.sh", "/c.sh", "/d.sh"));
+            Assert.assertEquals(1, results.size());
+            final IssueBatch report = results.get(0).get();
+            Assert.assertEquals(Arrays.asList("/a.sh", "/b.sh", "/c.sh", "/d.sh"), report.getFiles());
+            Assert.assertEquals(4, report.size());
+            Assert.assertEquals(3, runner.getStarted());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void test_complete_output_is_kept_after_timeout() throws Exception {
+        // The process exits after the timeout, but its output is already complete.
+        final FakeShellcheckRunner runner = new FakeShellcheckRunner(1, 0, files -> 0, 1500, false);
+        final ShellcheckExecutor executor = new ShellcheckExecutor(timeouts("1", "0").asConfig(), null, runner);
+        try {
+            final IssueBatch report = executor.submit("sh", Collections.singletonList("/a.sh")).get(0).get();
+            Assert.assertEquals(Collections.singletonList("/a.sh"), report.getFiles());
+            Assert.assertEquals(1, report.size());
+            Assert.assertEquals(1, runner.getStarted());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void test_timed_out_file_is_skipped() throws Exception {
+        // The slow file is analysed by a wrapper whose children keep the output open once it is killed.
+        final FakeShellcheckRunner runner = new FakeShellcheckRunner(1, 0, files -> files.contains("/slow.sh") ? 60000 : 0, true);
+        final ShellcheckExecutor executor = new ShellcheckExecutor(timeouts("1", "0").asConfig(), null, runner);
+        try {
+            final IssueBatch report = executor.submit("sh", Arrays.asList("/a.sh", "/slow.sh")).get(0).get();
+            Assert.assertEquals(Collections.singletonList("/a.sh"), report.getFiles());
+            Assert.assertEquals(1, report.size());
+            Assert.assertEquals(3, runner.getStarted());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void test_total_timeout_stops_remaining_batches() throws Exception {
+        final FakeShellcheckRunner runner = new FakeShellcheckRunner(1, 0, files -> 60000, false);
+        final MapSettings settings = timeouts("0", "1");
+        settings.setProperty(ShellcheckPluginProperties.THREADS_PROP_KEY, "1");
+        settings.setProperty(ShellcheckPluginProperties.BATCH_SIZE_PROP_KEY, "1");
+        final ShellcheckExecutor executor = new ShellcheckExecutor(settings.asConfig(), null, runner);
+        try {
+            final List<Future<IssueBatch>> results = executor.submit("sh", Arrays.asList("/a.sh", "/b.sh", "/c.sh"));
+            Assert.assertEquals(3, results.size());
+            for(final Future<IssueBatch> result : results) {
+                try {
+                    result.get();
+                    Assert.fail("Batch should not be analysed after the total timeout.");
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof TimeoutException);
+                }
+            }
+            // Only the first batch was started, then killed.
+            Assert.assertEquals(1, runner.getStarted());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void test_version() throws Exception {
+        ShellcheckExecutor executor = new ShellcheckExecutor(new MapSettings().asConfig(), null, new FakeShellcheckRunner(1, 0));
+        try {
+            Assert.assertEquals("fake", executor.version());
+        } finally {
+            executor.shutdown();
+        }
+
+        // A hung executable is killed like the analyses.
+        final FakeShellcheckRunner runner = new FakeShellcheckRunner(1, 0, files -> files.isEmpty() ? 60000 : 0, true);
+        executor = new ShellcheckExecutor(timeouts("1", "0").asConfig(), null, runner);
+        try {
+            executor.version();
+            Assert.fail("Version of a hung executable should not be retrieved.");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("not printed within"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_threads() {
+        MapSettings settings = new MapSettings();
+        Assert.assertEquals(Runtime.getRuntime().availableProcessors(), ShellcheckExecutor.getThreads(settings.asConfig()));
+        settings.setProperty(ShellcheckPluginProperties.THREADS_PROP_KEY, "3");
+        Assert.assertEquals(3, ShellcheckExecutor.getThreads(settings.asConfig()));
+        settings.setProperty(ShellcheckPluginProperties.THREADS_PROP_KEY, "0");
+        Assert.assertEquals(Runtime.getRuntime().availableProcessors(), ShellcheckExecutor.getThreads(settings.asConfig()));
+    }
+
+    private static MapSettings timeouts(final String batchTimeout, final String totalTimeout) {
+        final MapSettings settings = new MapSettings();
+        settings.setProperty(ShellcheckPluginProperties.TIMEOUT_PROP_KEY, batchTimeout);
+        settings.setProperty(ShellcheckPluginProperties.TOTAL_TIMEOUT_PROP_KEY, totalTimeout);
+        return settings;
+    }
+
+}
@@ -16,60 +16,61 @@
 
 package fr.cnes.sonar.plugins.shellcheck.check;
 
-import fr.cnes.sonar.plugins.shellcheck.check.ShellcheckSensor;
-import fr.cnes.sonar.plugins.shellcheck.model.CheckstyleError;
+import fr.cnes.sonar.plugins.shellcheck.measures.ShellcheckMetrics;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URISyntaxException;
-import java.nio.charset.Charset;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import static org.mockito.Mockito.verify;
 
 public class ShellcheckSensorTest {
 
+    @Rule
+    public TemporaryFolder workDir = new TemporaryFolder();
+
     private DefaultFileSystem fs;
     private SensorContextTester context;
-    private Map<String, InputFile> files;
 
     private DefaultInputFile bash_sh;
-    private CheckstyleError rule;
 
     @Before
     public void prepare() throws URISyntaxException {
         fs = new DefaultFileSystem(new File(getClass().getResource("/project").toURI()));
+        fs.setWorkDir(workDir.getRoot().toPath());
 
         bash_sh = TestInputFileBuilder.create(
                 "ProjectKey",
-                fs.resolvePath("bourne.bash").getPath())
-                .setLanguage("shellcheck")
+                "bourne.bash")
+                .setModuleBaseDir(fs.baseDirPath())
+                .setLanguage("shell")
                 .setType(InputFile.Type.MAIN)
+                .setCharset(StandardCharsets.UTF_8)
                 .setLines(10)
-                .setOriginalLineOffsets(new int[]{0,0,0,0,0,0,0,0,0,0})
+                .setOriginalLineOffsets(new int[]{0,10,20,30,40,50,60,70,80,90})
                 .setLastValidOffset(100)
-                .setContents("blablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\n")
+                .setContents("blablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\nblablabla\n")
                 .build();
         fs.add(bash_sh);
 
-        context = SensorContextTester.create(fs.baseDir());
-        files = new HashMap<>();
-        rule = new CheckstyleError();
-
-        files.put("bourne.bash", bash_sh);
-        files.put("clanhb.f", clanhb_f);
-
         context = SensorContextTester.create(fs.baseDir());
         context.setFileSystem(fs);
         MapSettings settings = new MapSettings();
@@ -95,37 +96,247 @@ public class ShellcheckSensorTest {
 		Assert.assertTrue(context.config().hasKey("sonar.shellcheck.reports.path"));
 	}
 
+    @Test
+    public void test_auto_launch_with_fake_runner() {
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+        final FakeShellcheckRunner runner = new FakeShellcheckRunner(3, 0);
+
+        new ShellcheckSensor(runner).execute(context);
+
+        Assert.assertEquals(1, runner.getStarted());
+        Assert.assertEquals(3, context.allIssues().size());
+        Assert.assertTrue(context.allAnalysisErrors().isEmpty());
+    }
+
+    @Test
+    public void test_save_measures() {
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+
+        new ShellcheckSensor(new FakeShellcheckRunner(3, 0)).execute(context);
+
+        final String module = context.module().key();
+        Assert.assertEquals(3, context.measure(module, ShellcheckMetrics.DIAGNOSTICS).value().intValue());
+        // 3 diagnostics in 11 lines, the last one being empty.
+        Assert.assertEquals(3000.0 / 11, context.measure(module, ShellcheckMetrics.DIAGNOSTICS_DENSITY).value(), 0.001);
+        Assert.assertEquals(11, context.measure(module, ShellcheckMetrics.LINES).value().intValue());
+        Assert.assertEquals(1, context.measure(module, ShellcheckMetrics.scripts("bash")).value().intValue());
+        Assert.assertEquals(0, context.measure(module, ShellcheckMetrics.scripts("ksh")).value().intValue());
+        Assert.assertNotNull(context.measure(module, ShellcheckMetrics.EXECUTION_TIME));
+    }
+
+    @Test
+    public void test_skip_measures_of_changed_files() {
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.settings().setProperty("sonar.shellcheck.launch.changedOnly", true);
+        context.settings().setProperty("sonar.pullrequest.key", "42");
+
+        new ShellcheckSensor(new FakeShellcheckRunner(3, 0)).execute(context);
+
+        Assert.assertNull(context.measure(context.module().key(), ShellcheckMetrics.DIAGNOSTICS));
+        Assert.assertNull(context.measure(context.module().key(), ShellcheckMetrics.EXECUTION_TIME));
+    }
+
+    @Test
+    public void test_write_statistics() throws IOException {
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.settings().setProperty("sonar.shellcheck.statistics", true);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+
+        new ShellcheckSensor(new FakeShellcheckRunner(3, 0)).execute(context);
+
+        final File statistics = new File(workDir.getRoot(), ShellcheckSensor.STATISTICS_FILE);
+        Assert.assertTrue(statistics.isFile());
+        final String json = new String(Files.readAllBytes(statistics.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(json.contains("\"execution\": {\"runs\": 1,"));
+        Assert.assertTrue(json.contains("\"batches\": 1,"));
+        Assert.assertTrue(json.contains("\"diagnostics\": 3,"));
+        Assert.assertTrue(json.contains("\"savedIssues\": 3,"));
+    }
+
+    @Test
+    public void test_write_trace() throws IOException {
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.settings().setProperty("sonar.shellcheck.trace", true);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+
+        new ShellcheckSensor(new FakeShellcheckRunner(3, 0)).execute(context);
+
+        final File trace = new File(workDir.getRoot(), ShellcheckSensor.TRACE_FILE);
+        Assert.assertTrue(trace.isFile());
+        final String json = new String(Files.readAllBytes(trace.toPath()), StandardCharsets.UTF_8);
+        for(final String span : new String[]{"batch", "spawn", "first output", "parse", "exit"}) {
+            Assert.assertTrue(span, json.contains("{\"name\":\"" + span + "\",\"cat\":\"shellcheck\",\"ph\":\"X\""));
+        }
+        Assert.assertTrue(json.contains("\"issues\":\"3\""));
+        Assert.assertTrue(json.contains("\"thread_name\""));
+    }
+
+    @Test
+    public void test_import_overlapping_reports_once() throws IOException {
+        final File baseDir = workDir.newFolder("reports");
+        fs = new DefaultFileSystem(baseDir);
+        fs.setWorkDir(workDir.getRoot().toPath());
+        fs.add(TestInputFileBuilder.create("ProjectKey", "bourne.bash")
+                .setModuleBaseDir(baseDir.toPath())
+                .setLanguage("shell")
+                .setType(InputFile.Type.MAIN)
+                .setCharset(StandardCharsets.UTF_8)
+                .setContents("echo $1\necho $2\n")
+                .build());
+        context.setFileSystem(fs);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+        final String report = "<checkstyle version='4.3'><file name='bourne.bash'>"
+                + "<error line='1' column='6' severity='info' message='m' source='ShellCheck.SC2086'/>"
+                + "<error line='2' column='6' severity='info' message='m' source='ShellCheck.SC2086'/>"
+                + "</file></checkstyle>";
+        Files.write(baseDir.toPath().resolve("a-shellcheck.res"), report.getBytes(StandardCharsets.UTF_8));
+        Files.write(baseDir.toPath().resolve("b-shellcheck.res"), report.getBytes(StandardCharsets.UTF_8));
+
+        new ShellcheckSensor().execute(context);
+
+        Assert.assertEquals(2, context.allIssues().size());
+    }
+
+    @Test
+    public void test_measure_diagnostics_of_project_files_once() throws IOException {
+        final File baseDir = workDir.newFolder("measures");
+        fs = new DefaultFileSystem(baseDir);
+        fs.setWorkDir(workDir.getRoot().toPath());
+        fs.add(TestInputFileBuilder.create("ProjectKey", "bourne.bash")
+                .setModuleBaseDir(baseDir.toPath())
+                .setLanguage("shell")
+                .setType(InputFile.Type.MAIN)
+                .setCharset(StandardCharsets.UTF_8)
+                .setContents("echo $1\necho $2\n")
+                .build());
+        context.setFileSystem(fs);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+        // An issue of an inactive rule is measured, duplicates and issues of unknown files are not.
+        final String report = "<checkstyle version='4.3'><file name='bourne.bash'>"
+                + "<error line='1' column='6' severity='info' message='m' source='ShellCheck.SC2086'/>"
+                + "<error line='2' column='6' severity='info' message='m' source='ShellCheck.SC2086'/>"
+                + "<error line='2' column='1' severity='warning' message='m' source='ShellCheck.SC2034'/>"
+                + "</file><file name='unknown.sh'>"
+                + "<error line='1' column='6' severity='info' message='m' source='ShellCheck.SC2086'/>"
+                + "</file></checkstyle>";
+        Files.write(baseDir.toPath().resolve("a-shellcheck.res"), report.getBytes(StandardCharsets.UTF_8));
+        Files.write(baseDir.toPath().resolve("b-shellcheck.res"), report.getBytes(StandardCharsets.UTF_8));
+
+        new ShellcheckSensor().execute(context);
+
+        Assert.assertEquals(2, context.allIssues().size());
+        Assert.assertEquals(3, context.measure(context.module().key(), ShellcheckMetrics.DIAGNOSTICS).value().intValue());
+        // No process ran without auto-launch.
+        Assert.assertNull(context.measure(context.module().key(), ShellcheckMetrics.EXECUTION_TIME));
+    }
+
+    @Test
+    public void test_auto_launch_with_json1_ranges() {
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.settings().setProperty("sonar.shellcheck.launch.format", "json1");
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+
+        new ShellcheckSensor(new FakeShellcheckRunner(2, 0)).execute(context);
+
+        Assert.assertEquals(2, context.allIssues().size());
+        final TextRange range = context.allIssues().iterator().next().primaryLocation().textRange();
+        Assert.assertEquals(0, range.start().lineOffset());
+        Assert.assertEquals(2, range.end().lineOffset());
+    }
+
+    @Test
+    public void test_auto_launch_skips_file_on_timeout() {
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.settings().setProperty("sonar.shellcheck.launch.timeout", 1);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+
+        new ShellcheckSensor(new FakeShellcheckRunner(3, 10000)).execute(context);
+
+        Assert.assertEquals(0, context.allIssues().size());
+        Assert.assertTrue(context.allAnalysisErrors().isEmpty());
+    }
+
+    @Test(timeout = 20000)
+    public void test_auto_launch_stops_at_total_timeout() throws IOException {
+        final File baseDir = workDir.newFolder("timeout");
+        fs = new DefaultFileSystem(baseDir);
+        fs.setWorkDir(workDir.getRoot().toPath());
+        for(final String name : new String[]{"a.sh", "b.sh", "c.sh"}) {
+            fs.add(TestInputFileBuilder.create("ProjectKey", name)
+                    .setModuleBaseDir(baseDir.toPath())
+                    .setLanguage("shell")
+                    .setType(InputFile.Type.MAIN)
+                    .setCharset(StandardCharsets.UTF_8)
+                    .setContents("#!/bin/sh\necho $1\n")
+                    .build());
+        }
+        context.setFileSystem(fs);
+        context.settings().setProperty("sonar.shellcheck.launch", true);
+        context.settings().setProperty("sonar.shellcheck.threads", 1);
+        context.settings().setProperty("sonar.shellcheck.launch.batch.size", 1);
+        context.settings().setProperty("sonar.shellcheck.launch.totalTimeout", 1);
+
+        new ShellcheckSensor(new FakeShellcheckRunner(3, 60000)).execute(context);
+
+        Assert.assertEquals(0, context.allIssues().size());
+        // Batches stopped by the total timeout are not analysis errors.
+        Assert.assertTrue(context.allAnalysisErrors().isEmpty());
+    }
+
+    @Test
+    public void test_read_interpreter() throws IOException {
+        Assert.assertEquals("bash", ShellcheckSensor.readInterpreter(bash_sh));
+        final InputFile ksh = TestInputFileBuilder.create("ProjectKey", "scripts/run.sh")
+                .setModuleBaseDir(fs.baseDirPath())
+                .setLanguage("shell")
+                .setCharset(StandardCharsets.UTF_8)
+                .setContents("\n#!/bin/ksh -e\necho hello\n")
+                .build();
+        Assert.assertEquals("ksh", ShellcheckSensor.readInterpreter(ksh));
+    }
+
 	@Test
-    public void test_save_issue() {
-        rule.result = new CheckstyleError();
-        rule.analysisRuleId = "SH.ERR.Help";
-        rule.result.fileName = "bourne.bash";
-        rule.result.resultValue = "3";
-        rule.result.resultLine = "4";
-        rule.result.resultTypePlace = "class";
-        rule.result.resultNamePlace = "yolo";
-        rule.result.resultId = "11";
-        rule.result.resultMessage = "Small file";
-
-        ShellcheckSensor.saveIssue(context, files, rule);
+    public void test_save_issue() throws IOException {
+        ShellcheckSensor.saveIssue(context, bash_sh, LineIndex.of(bash_sh), RuleKey.of("shell-rules", "SC2086"),
+                "Double quote to prevent globbing and word splitting.", 4, 3, 0, 0);
+        Assert.assertEquals(1, context.allIssues().size());
+    }
+
+    @Test
+    public void test_save_issue_with_invalid_range() throws IOException {
+        ShellcheckSensor.saveIssue(context, bash_sh, LineIndex.of(bash_sh), RuleKey.of("shell-rules", "SC2086"),
+                "Double quote to prevent globbing and word splitting.", 4, 3, 4, 40);
         Assert.assertEquals(1, context.allIssues().size());
+        Assert.assertEquals(9, context.allIssues().iterator().next().primaryLocation().textRange().end().lineOffset());
     }
 
     @Test
-    public void test_save_issue_with_unknown_file() {
-        rule.result = new CheckstyleError();
-        rule.analysisRuleId = "SH.ERR.Help";
-        rule.result.fileName = "lalalalalala.sh";
-        rule.result.resultValue = "3";
-        rule.result.resultLine = "110";
-        rule.result.resultTypePlace = "class";
-        rule.result.resultNamePlace = "yolo";
-        rule.result.resultId = "11";
-        rule.result.resultMessage = "Small file";
-
-        ShellcheckSensor.saveIssue(context, files, rule);
+    public void test_save_issue_with_unknown_file() throws IOException {
+        final File baseDir = workDir.newFolder("unknown");
+        fs = new DefaultFileSystem(baseDir);
+        fs.setWorkDir(workDir.getRoot().toPath());
+        fs.add(bash_sh);
+        context.setFileSystem(fs);
+        context.setActiveRules(new ActiveRulesBuilder()
+                .create(RuleKey.of("shell-rules", "ShellCheck.SC2086")).activate().build());
+        final String report = "<checkstyle version='4.3'><file name='lalalalalala.sh'>"
+                + "<error line='110' column='3' severity='info' message='m' source='ShellCheck.SC2086'/>"
+                + "</file></checkstyle>";
+        Files.write(baseDir.toPath().resolve("unknown-shellcheck.res"), report.getBytes(StandardCharsets.UTF_8));
+
+        new ShellcheckSensor().execute(context);
+
         Assert.assertEquals(0, context.allIssues().size());
     }
 
 }
-*/
@@ -0,0 +1,57 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.check;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class TraceRecorderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_write_spans() throws IOException {
+        final TraceRecorder trace = new TraceRecorder(true);
+        final long start = trace.now();
+        trace.span("batch", start, start + 3_000_000L, "first file", "/a \"b\".sh");
+        Assert.assertEquals(1, trace.size());
+
+        final File file = folder.newFile("trace.json");
+        trace.write(file);
+        final String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+        Assert.assertTrue(json.contains("\"dur\":3000,"));
+        Assert.assertTrue(json.contains("\"args\":{\"first file\":\"/a \\\"b\\\".sh\"}"));
+        Assert.assertTrue(json.contains("\"args\":{\"name\":\"" + Thread.currentThread().getName() + "\"}"));
+    }
+
+    @Test
+    public void test_disabled() {
+        final TraceRecorder trace = new TraceRecorder(false);
+        trace.span("batch", trace.now(), trace.now());
+        Assert.assertEquals(0, trace.size());
+    }
+
+}
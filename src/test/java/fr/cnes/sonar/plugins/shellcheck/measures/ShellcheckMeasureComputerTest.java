@@ -0,0 +1,87 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.measures;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.ce.measure.Component;
+import org.sonar.api.ce.measure.MeasureComputer;
+import org.sonar.api.ce.measure.test.TestComponent;
+import org.sonar.api.ce.measure.test.TestMeasureComputerContext;
+import org.sonar.api.ce.measure.test.TestMeasureComputerDefinitionContext;
+import org.sonar.api.ce.measure.test.TestSettings;
+
+public class ShellcheckMeasureComputerTest {
+
+    private final ShellcheckMeasureComputer computer = new ShellcheckMeasureComputer();
+
+    private TestMeasureComputerContext context(final Component.Type type) {
+        final MeasureComputer.MeasureComputerDefinition definition =
+                computer.define(new TestMeasureComputerDefinitionContext());
+        return new TestMeasureComputerContext(new TestComponent("key", type, null), new TestSettings(), definition);
+    }
+
+    @Test
+    public void test_density_is_only_written() {
+        final MeasureComputer.MeasureComputerDefinition definition =
+                computer.define(new TestMeasureComputerDefinitionContext());
+        Assert.assertFalse(definition.getInputMetrics().contains(ShellcheckMetrics.DIAGNOSTICS_DENSITY.key()));
+        Assert.assertTrue(definition.getOutputMetrics().contains(ShellcheckMetrics.DIAGNOSTICS_DENSITY.key()));
+        Assert.assertTrue(definition.getInputMetrics().contains(ShellcheckMetrics.DIAGNOSTICS.key()));
+    }
+
+    @Test
+    public void test_sum_modules_on_project() {
+        final TestMeasureComputerContext context = context(Component.Type.PROJECT);
+        context.addChildrenMeasures(ShellcheckMetrics.EXECUTION_TIME.key(), 100L, 250L);
+        context.addChildrenMeasures(ShellcheckMetrics.DIAGNOSTICS.key(), 3, 5);
+        context.addChildrenMeasures(ShellcheckMetrics.LINES.key(), 100, 300);
+        context.addChildrenMeasures(ShellcheckMetrics.scripts("bash").key(), 2, 4);
+
+        computer.compute(context);
+
+        Assert.assertEquals(350L, context.getMeasure(ShellcheckMetrics.EXECUTION_TIME.key()).getLongValue());
+        Assert.assertEquals(8, context.getMeasure(ShellcheckMetrics.DIAGNOSTICS.key()).getIntValue());
+        Assert.assertEquals(400, context.getMeasure(ShellcheckMetrics.LINES.key()).getIntValue());
+        Assert.assertEquals(20.0, context.getMeasure(ShellcheckMetrics.DIAGNOSTICS_DENSITY.key()).getDoubleValue(), 0.001);
+        Assert.assertEquals(6, context.getMeasure(ShellcheckMetrics.scripts("bash").key()).getIntValue());
+        Assert.assertNull(context.getMeasure(ShellcheckMetrics.scripts("ksh").key()));
+    }
+
+    @Test
+    public void test_keep_measures_of_analysed_module() {
+        final TestMeasureComputerContext context = context(Component.Type.MODULE);
+        context.addInputMeasure(ShellcheckMetrics.DIAGNOSTICS.key(), 1);
+        context.addChildrenMeasures(ShellcheckMetrics.DIAGNOSTICS.key(), 3, 5);
+
+        computer.compute(context);
+
+        Assert.assertEquals(1, context.getMeasure(ShellcheckMetrics.DIAGNOSTICS.key()).getIntValue());
+        Assert.assertNull(context.getMeasure(ShellcheckMetrics.DIAGNOSTICS_DENSITY.key()));
+    }
+
+    @Test
+    public void test_ignore_components_without_measures() {
+        final TestMeasureComputerContext context = context(Component.Type.DIRECTORY);
+
+        computer.compute(context);
+
+        Assert.assertNull(context.getMeasure(ShellcheckMetrics.DIAGNOSTICS.key()));
+        Assert.assertNull(context.getMeasure(ShellcheckMetrics.EXECUTION_TIME.key()));
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.measures;
+
+import fr.cnes.sonar.plugins.shellcheck.languages.ShellLanguage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.api.measures.Metric;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ShellcheckMetricsTest {
+
+    @Test
+    public void test_metrics() {
+        final List<Metric> metrics = new ShellcheckMetrics().getMetrics();
+        Assert.assertEquals(4 + ShellLanguage.INTERPRETERS.length, metrics.size());
+        final Set<String> keys = new HashSet<>();
+        for(final Metric metric : metrics) {
+            Assert.assertTrue(keys.add(metric.getKey()));
+        }
+        Assert.assertEquals("shellcheck_scripts_dash", ShellcheckMetrics.scripts("dash").getKey());
+        Assert.assertNull(ShellcheckMetrics.scripts("zsh"));
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class CheckstyleReaderTest {
+
+    private static final String REPORT = "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<checkstyle version='4.3'>\n"
+            + "<file name='a.sh' >\n"
+            + "<error line='3' column='6' severity='info' message='Double quote to prevent globbing &amp; word splitting.' source='ShellCheck.SC2086' />\n"
+            + "<error line='5' column='1' severity='warning' message='x appears unused.' source='ShellCheck.SC2034' />\n"
+            + "</file>\n"
+            + "<file name='b.sh' >\n"
+            + "</file>\n"
+            + "</checkstyle>\n";
+
+    private static InputStream stream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test_read_into_batch() throws IOException {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        CheckstyleReader.read(stream(REPORT), batch);
+
+        // Files without errors are listed too.
+        Assert.assertEquals(Arrays.asList("a.sh", "b.sh"), batch.getFiles());
+        Assert.assertEquals(2, batch.size());
+        Assert.assertEquals(2086, batch.getCode(0));
+        Assert.assertEquals(3, batch.getLine(0));
+        Assert.assertEquals(6, batch.getColumn(0));
+        Assert.assertEquals(0, batch.getEndLine(0));
+        Assert.assertEquals(Severity.INFO, batch.getSeverity(0));
+        Assert.assertEquals("Double quote to prevent globbing & word splitting.", batch.getMessage(0));
+        Assert.assertEquals(Severity.WARNING, batch.getSeverity(1));
+        Assert.assertEquals(0, batch.issuesByFile()[1].length);
+    }
+
+    @Test
+    public void test_read_streams_errors() throws IOException {
+        final int[] codes = new int[2];
+        final int[] count = {0};
+        CheckstyleReader.read(stream(REPORT), (file, line, endLine, column, endColumn, level, code, message) -> {
+            Assert.assertEquals("a.sh", file);
+            codes[count[0]++] = code;
+        });
+        Assert.assertArrayEquals(new int[]{2086, 2034}, codes);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_truncated_report() throws IOException {
+        CheckstyleReader.read(stream(REPORT.substring(0, REPORT.length() / 2)), new IssueBatch(new StringPool()));
+    }
+
+}
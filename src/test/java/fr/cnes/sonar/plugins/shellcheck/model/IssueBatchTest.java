@@ -0,0 +1,88 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IssueBatchTest {
+
+    @Test
+    public void test_store_and_replay() {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        batch.file("/a.sh");
+        for(int i = 0; i < 100; i++) {
+            batch.comment(i % 2 == 0 ? "/b.sh" : "/a.sh", i + 1, i + 1, 3, 5, "warning", 2034,
+                    new String("unused variable".toCharArray()));
+        }
+        batch.comment("/b.sh", 7, 0, 0, 0, "unknown", 1000, "message");
+        batch.file("/c.sh");
+
+        Assert.assertEquals(101, batch.size());
+        Assert.assertEquals(Arrays.asList("/a.sh", "/b.sh", "/c.sh"), batch.getFiles());
+        Assert.assertEquals(Severity.WARNING, batch.getSeverity(0));
+        Assert.assertNull(batch.getSeverity(100));
+        // Equal messages are shared.
+        Assert.assertSame(batch.getMessage(0), batch.getMessage(1));
+
+        final int[][] byFile = batch.issuesByFile();
+        Assert.assertEquals(50, byFile[0].length);
+        Assert.assertEquals(51, byFile[1].length);
+        Assert.assertEquals(0, byFile[2].length);
+        Assert.assertEquals(100, byFile[1][50]);
+
+        final List<String> replayed = new ArrayList<>();
+        batch.replay(new IssueHandler() {
+            @Override
+            public void file(final String file) {
+                replayed.add(file);
+            }
+
+            @Override
+            public void comment(final String file, final int line, final int endLine, final int column,
+                                final int endColumn, final String level, final int code, final String message) {
+                replayed.add(file + ":" + line + ":" + column + ":" + level + ":" + code);
+            }
+        });
+        Assert.assertEquals(104, replayed.size());
+        Assert.assertEquals("/b.sh:1:3:warning:2034", replayed.get(3));
+        Assert.assertEquals("/b.sh:7:0:null:1000", replayed.get(103));
+    }
+
+    @Test
+    public void test_add_all() {
+        final StringPool pool = new StringPool();
+        final IssueBatch first = new IssueBatch(pool);
+        first.comment("/a.sh", 1, 1, 1, 2, "error", 1000, "message");
+        final IssueBatch second = new IssueBatch(pool);
+        second.file("/b.sh");
+        second.comment("/a.sh", 2, 2, 1, 2, "style", 2006, "message");
+        first.addAll(second);
+
+        Assert.assertEquals(Arrays.asList("/a.sh", "/b.sh"), first.getFiles());
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(Severity.STYLE, first.getSeverity(1));
+        Assert.assertEquals(2006, first.getCode(1));
+        Assert.assertEquals(2, first.issuesByFile()[0].length);
+        Assert.assertEquals(1, pool.size());
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of sonar-shellcheck-cnes-plugin.
+ *
+ * sonar-shellcheck-cnes-plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * sonar-shellcheck-cnes-plugin is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with sonar-shellcheck-cnes-plugin.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.plugins.shellcheck.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class Json1ReaderTest {
+
+    private static final String REPORT = "{\"comments\":["
+            + "{\"file\":\"a.sh\",\"line\":3,\"endLine\":3,\"column\":6,\"endColumn\":8,\"level\":\"info\",\"code\":2086,"
+            + "\"message\":\"Double quote to prevent \\\"globbing\\\"\\u0021\","
+            + "\"fix\":{\"replacements\":[{\"line\":3,\"column\":6,\"insertionPoint\":\"afterEnd\",\"precedence\":7,\"replacement\":\"\\\"\"}]}},"
+            + " {\"file\":\"a.sh\",\"line\":5,\"endLine\":6,\"column\":1,\"endColumn\":2,\"level\":\"warning\",\"code\":2034,"
+            + "\"message\":\"x appears unused.\",\"fix\":null},\n"
+            + "{\"file\":\"b.sh\",\"line\":1,\"endLine\":1,\"column\":1,\"endColumn\":1,\"level\":\"error\",\"code\":1071,"
+            + "\"message\":\"Unsupported shell.\",\"fix\":null}]}";
+
+    private static InputStream stream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test_read_into_batch() throws IOException {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        Json1Reader.read(stream(REPORT), batch);
+
+        Assert.assertEquals(Arrays.asList("a.sh", "b.sh"), batch.getFiles());
+        Assert.assertEquals(3, batch.size());
+        Assert.assertEquals(2086, batch.getCode(0));
+        Assert.assertEquals(3, batch.getLine(0));
+        Assert.assertEquals(6, batch.getColumn(0));
+        Assert.assertEquals(3, batch.getEndLine(0));
+        Assert.assertEquals(8, batch.getEndColumn(0));
+        Assert.assertEquals(Severity.INFO, batch.getSeverity(0));
+        Assert.assertEquals("Double quote to prevent \"globbing\"!", batch.getMessage(0));
+        Assert.assertEquals(6, batch.getEndLine(1));
+        Assert.assertEquals(Severity.ERROR, batch.getSeverity(2));
+    }
+
+    @Test
+    public void test_read_json_array_and_empty_report() throws IOException {
+        final int[] count = {0};
+        Json1Reader.read(stream("[{\"file\":\"a.sh\",\"line\":1,\"column\":1,\"level\":\"style\",\"code\":2006,\"message\":\"m\"}]"),
+                (file, line, endLine, column, endColumn, level, code, message) -> {
+                    Assert.assertEquals(0, endLine);
+                    Assert.assertEquals(2006, code);
+                    count[0]++;
+                });
+        Assert.assertEquals(1, count[0]);
+        final IssueBatch empty = new IssueBatch(new StringPool());
+        Json1Reader.read(stream(" {\"comments\":[]} "), empty);
+        Assert.assertTrue(empty.getFiles().isEmpty());
+    }
+
+    @Test
+    public void test_read_report_with_byte_order_mark() throws IOException {
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        Json1Reader.read(stream("\uFEFF" + REPORT), batch);
+        Assert.assertEquals(3, batch.size());
+        Assert.assertEquals(2086, batch.getCode(0));
+    }
+
+    @Test
+    public void test_skip_deeply_nested_fix() throws IOException {
+        final StringBuilder fix = new StringBuilder();
+        for(int i = 0; i < 200000; i++) {
+            fix.append('[');
+        }
+        fix.append("{\"a\":[1,{},\"b\"],\"c\":{\"d\":null}}");
+        for(int i = 0; i < 200000; i++) {
+            fix.append(']');
+        }
+        final IssueBatch batch = new IssueBatch(new StringPool());
+        Json1Reader.read(stream("{\"comments\":[{\"file\":\"a.sh\",\"fix\":" + fix + ",\"line\":2,\"code\":2086,"
+                + "\"level\":\"info\",\"message\":\"m\"}],\"extra\":{\"e\":[true,false]}}"), batch);
+        Assert.assertEquals(1, batch.size());
+        Assert.assertEquals(2, batch.getLine(0));
+        Assert.assertEquals(2086, batch.getCode(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void test_mismatched_nested_fix() throws IOException {
+        Json1Reader.read(stream("{\"comments\":[{\"file\":\"a.sh\",\"fix\":[{\"a\":1]}]}"), new IssueBatch(new StringPool()));
+    }
+
+    @Test(expected = IOException.class)
+    public void test_truncated_report() throws IOException {
+        Json1Reader.read(stream(REPORT.substring(0, REPORT.length() / 2)), new IssueBatch(new StringPool()));
+    }
+
+}
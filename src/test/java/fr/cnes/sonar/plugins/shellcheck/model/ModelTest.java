@@ -28,27 +28,11 @@ import java.net.URISyntaxException;
 
 public class ModelTest {
 
-    private CheckstyleReport report;
-    private CheckstyleFile file;
-    private CheckstyleError error;
         private RulesDefinition rulesDefinition;
     private Rule check;
 
     @Before
     public void before() {
-        report = new CheckstyleReport();
-
-        report.version = "1.0.0";
-
-        file = new CheckstyleFile();
-        file.name = "foo.sh";
-
-        error = new CheckstyleError();
-        error.source = "WOW";
-        error.column = "14";
-        error.line = "12";
-        error.message = "Test message";
-
         check = new Rule();
         check.key = "a";
         check.cardinality = "a";
@@ -67,8 +51,6 @@ public class ModelTest {
 
     @Test
     public void test_getters() {
-        Assert.assertEquals(0, report.getCheckstyleFiles().size());
-        Assert.assertEquals(0, file.getChecktyleErrors().size());
         Assert.assertEquals(0, rulesDefinition.getRules().size());
         rulesDefinition.shellcheckRules = new Rule[]{check};
         Assert.assertEquals(1, rulesDefinition.getRules().size());
@@ -78,13 +60,13 @@ public class ModelTest {
     public void test_unmarshal_from_file() throws JAXBException, URISyntaxException {
         File file = new File(this.getClass().getResource("/rules/shellcheck-rules.xml").toURI());
         RulesDefinition def = (RulesDefinition) XmlHandler.unmarshal(file, RulesDefinition.class);
-        Assert.assertEquals(39, def.getRules().size());
+        Assert.assertEquals(284, def.getRules().size());
     }
 
     @Test
     public void test_unmarshal_from_stream() throws JAXBException {
         InputStream stream = this.getClass().getResourceAsStream("/rules/shellcheck-rules.xml");
         RulesDefinition def = (RulesDefinition) XmlHandler.unmarshal(stream, RulesDefinition.class);
-        Assert.assertEquals(39, def.getRules().size());
+        Assert.assertEquals(284, def.getRules().size());
     }
 }